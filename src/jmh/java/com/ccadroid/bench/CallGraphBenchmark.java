@@ -0,0 +1,65 @@
+package com.ccadroid.bench;
+
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.graph.CallGraph;
+import org.graphstream.graph.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.ccadroid.util.graph.BaseGraph.EdgeType.DOWNWARD;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallGraphBenchmark {
+    @Param({"chain", "lattice"})
+    private String shape;
+    @Param({"8", "12"})
+    private int depth;
+    private CallGraph callGraph;
+    private String rootId;
+    private String leafId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Configuration.loadConfig();
+
+        callGraph = new CallGraph();
+
+        int width = shape.equals("chain") ? 1 : 2;
+        ArrayList<Node> prevNodes = new ArrayList<>();
+        for (int i = 0; i <= depth; i++) {
+            ArrayList<Node> nodes = new ArrayList<>();
+            int size = (i == 0 || i == depth) ? 1 : width;
+            for (int j = 0; j < size; j++) {
+                String id = "<com.example.C" + i + ": void m" + j + "()>";
+                Node node = callGraph.addNode(id, id);
+                nodes.add(node);
+
+                for (Node p : prevNodes) {
+                    callGraph.addEdge(p, node, DOWNWARD);
+                }
+            }
+
+            prevNodes = nodes;
+        }
+
+        rootId = "<com.example.C0: void m0()>";
+        leafId = "<com.example.C" + depth + ": void m0()>";
+    }
+
+    @Benchmark
+    public ArrayList<ArrayList<String>> getLowerListOfIds() {
+        return callGraph.getListOfIds(rootId, false);
+    }
+
+    @Benchmark
+    public ArrayList<ArrayList<String>> getUpperListOfIds() {
+        return callGraph.getListOfIds(leafId, true);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.ccadroid.bench;
+
+import com.ccadroid.slice.SliceDatabase;
+import com.ccadroid.slice.SliceLine;
+import soot.*;
+import soot.jimple.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.ccadroid.util.soot.SootUnit.*;
+
+public class JimpleFixtures {
+    public static final String CIPHER_INIT = "<javax.crypto.Cipher: void init(int,java.security.Key)>";
+    private static final String[] ALGORITHMS = {"DES", "AES/CBC/PKCS5Padding", "RC4", "AES/ECB/PKCS5Padding", "DESede"};
+    private static final int UNIT_KINDS = 12;
+
+    private JimpleFixtures() throws InstantiationException {
+        throw new InstantiationException();
+    }
+
+    public static ArrayList<Unit> createUnits(int count) {
+        return createUnits(count, null);
+    }
+
+    public static ArrayList<SliceLine> createSliceContent(String callerName, int index) {
+        String algorithm = ALGORITHMS[index % ALGORITHMS.length];
+        ArrayList<Unit> units = createUnits(UNIT_KINDS, algorithm);
+        ArrayList<SliceLine> content = new ArrayList<>();
+
+        int[] lineNumbers = {2, 3, 4, 5, 6};
+        for (int n : lineNumbers) {
+            Unit unit = units.get(n);
+            int unitType = getUnitType(unit);
+            ArrayList<String> constants = ((unitType & INVOKE) == INVOKE) ? getConstants(unit) : null;
+
+            content.add(new SliceLine(unit.toString(), unitType, callerName, n, constants));
+        }
+
+        return content;
+    }
+
+    public static void insertSlices(SliceDatabase sliceDatabase, int count) {
+        sliceDatabase.initialize();
+
+        for (int i = 0; i < count; i++) {
+            String nodeId = String.valueOf(i);
+            String callerName = "<com.example.App: void run" + i + "()>";
+            ArrayList<SliceLine> content = createSliceContent(callerName, i);
+            ArrayList<Integer> targetParamNumbers = new ArrayList<>(Collections.singletonList(-1));
+            ArrayList<String> targetVariables = new ArrayList<>(Collections.singletonList("$r1"));
+
+            sliceDatabase.insert(nodeId, new ArrayList<>(), callerName, CIPHER_INIT, content.size() - 1, targetParamNumbers, targetVariables, content);
+            sliceDatabase.insert(nodeId, CIPHER_INIT, targetParamNumbers, targetVariables, content);
+        }
+    }
+
+    private static ArrayList<Unit> createUnits(int count, String fixedAlgorithm) {
+        Jimple jimple = Jimple.v();
+        SootClass appClass = new SootClass("com.example.App", Modifier.PUBLIC);
+        SootClass cipherClass = new SootClass("javax.crypto.Cipher", Modifier.PUBLIC);
+        SootClass specClass = new SootClass("javax.crypto.spec.SecretKeySpec", Modifier.PUBLIC);
+        RefType appType = RefType.v(appClass.getName());
+        RefType cipherType = RefType.v(cipherClass.getName());
+        RefType specType = RefType.v(specClass.getName());
+        RefType stringType = RefType.v("java.lang.String");
+        ArrayType byteArrayType = ArrayType.v(ByteType.v(), 1);
+
+        SootMethodRef getInstanceRef = Scene.v().makeMethodRef(cipherClass, "getInstance", Collections.singletonList(stringType), cipherType, true);
+        SootMethodRef initRef = Scene.v().makeMethodRef(cipherClass, "init", List.of(IntType.v(), RefType.v("java.security.Key")), VoidType.v(), false);
+        SootMethodRef specInitRef = Scene.v().makeMethodRef(specClass, SootMethod.constructorName, List.of(byteArrayType, stringType), VoidType.v(), false);
+        SootFieldRef keyFieldRef = Scene.v().makeFieldRef(appClass, "KEY", stringType, true);
+
+        ArrayList<Unit> units = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Local r0 = jimple.newLocal("r0", appType);
+            Local r1 = jimple.newLocal("$r1", cipherType);
+            Local r2 = jimple.newLocal("$r2", specType);
+            Local r3 = jimple.newLocal("$r3", byteArrayType);
+            Local r4 = jimple.newLocal("$r4", stringType);
+            Local i0 = jimple.newLocal("$i0", IntType.v());
+            String algorithm = (fixedAlgorithm == null) ? ALGORITHMS[i % ALGORITHMS.length] : fixedAlgorithm;
+
+            Unit unit;
+            switch (i % UNIT_KINDS) {
+                case 0: {
+                    unit = jimple.newIdentityStmt(r0, jimple.newThisRef(appType));
+                    break;
+                }
+
+                case 1: {
+                    unit = jimple.newIdentityStmt(r4, jimple.newParameterRef(stringType, 0));
+                    break;
+                }
+
+                case 2: {
+                    unit = jimple.newAssignStmt(r1, jimple.newStaticInvokeExpr(getInstanceRef, StringConstant.v(algorithm)));
+                    break;
+                }
+
+                case 3: {
+                    unit = jimple.newAssignStmt(r2, jimple.newNewExpr(specType));
+                    break;
+                }
+
+                case 4: {
+                    unit = jimple.newAssignStmt(r3, jimple.newNewArrayExpr(ByteType.v(), IntConstant.v(16)));
+                    break;
+                }
+
+                case 5: {
+                    unit = jimple.newInvokeStmt(jimple.newSpecialInvokeExpr(r2, specInitRef, r3, StringConstant.v(algorithm)));
+                    break;
+                }
+
+                case 6: {
+                    unit = jimple.newInvokeStmt(jimple.newVirtualInvokeExpr(r1, initRef, IntConstant.v(1), r2));
+                    break;
+                }
+
+                case 7: {
+                    unit = jimple.newAssignStmt(i0, IntConstant.v(i));
+                    break;
+                }
+
+                case 8: {
+                    unit = jimple.newAssignStmt(r4, jimple.newStaticFieldRef(keyFieldRef));
+                    break;
+                }
+
+                case 9: {
+                    unit = jimple.newAssignStmt(jimple.newStaticFieldRef(keyFieldRef), StringConstant.v(algorithm));
+                    break;
+                }
+
+                case 10: {
+                    unit = jimple.newAssignStmt(r2, jimple.newCastExpr(r4, specType));
+                    break;
+                }
+
+                default: {
+                    unit = jimple.newReturnVoidStmt();
+                    break;
+                }
+            }
+
+            units.add(unit);
+        }
+
+        return units;
+    }
+
+    private static ArrayList<String> getConstants(Unit unit) {
+        ArrayList<String> constants = new ArrayList<>();
+
+        Stmt stmt = (Stmt) unit;
+        InvokeExpr invokeExpr = stmt.getInvokeExpr();
+        for (Value v : invokeExpr.getArgs()) {
+            if (v instanceof Constant) {
+                constants.add(v.toString());
+            }
+        }
+
+        return constants;
+    }
+}
\ No newline at end of file
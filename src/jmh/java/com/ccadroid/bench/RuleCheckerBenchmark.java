@@ -0,0 +1,55 @@
+package com.ccadroid.bench;
+
+import com.ccadroid.check.RuleChecker;
+import com.ccadroid.slice.SliceDatabase;
+import com.ccadroid.util.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleCheckerBenchmark {
+    @Param({"10", "100", "500"})
+    private int sliceCount;
+    @Param({"rule"})
+    private String ruleFileDir;
+    private RuleChecker ruleChecker;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Configuration.loadConfig();
+
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // for suppressing findings
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        SliceDatabase sliceDatabase = SliceDatabase.getInstance();
+        JimpleFixtures.insertSlices(sliceDatabase, sliceCount);
+
+        ruleChecker = new RuleChecker();
+        ruleChecker.loadRules(new File(ruleFileDir));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public int checkRules() {
+        ruleChecker.checkRules();
+
+        return ruleChecker.getFindings().size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.ccadroid.bench;
+
+import com.ccadroid.slice.SliceDatabase;
+import com.ccadroid.slice.SliceQuery;
+import com.ccadroid.util.Configuration;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.ccadroid.slice.SliceConstants.*;
+import static com.ccadroid.slice.SliceQuery.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SliceDatabaseBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int sliceCount;
+    private SliceDatabase sliceDatabase;
+    private SliceQuery mergedQuery;
+    private SliceQuery nodeQuery;
+    private SliceQuery tokenQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Configuration.loadConfig();
+
+        sliceDatabase = SliceDatabase.getInstance();
+        JimpleFixtures.insertSlices(sliceDatabase, sliceCount);
+
+        String nodeId = String.valueOf(sliceCount / 2);
+        mergedQuery = isNull(CALLER_NAME);
+        nodeQuery = eq(NODE_ID, nodeId).and(isNotNull(CALLER_NAME));
+        tokenQuery = containsToken(CALLER_NAME, "run" + nodeId + "(").and(eq(TARGET_STATEMENT, JimpleFixtures.CIPHER_INIT));
+    }
+
+    @Benchmark
+    public ArrayList<JSONObject> selectMergedSlices() {
+        return sliceDatabase.selectAll(mergedQuery);
+    }
+
+    @Benchmark
+    public ArrayList<JSONObject> selectByNodeId() {
+        return sliceDatabase.selectAll(nodeQuery);
+    }
+
+    @Benchmark
+    public ArrayList<JSONObject> selectByToken() {
+        return sliceDatabase.selectAll(tokenQuery);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.ccadroid.bench;
+
+import com.ccadroid.util.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import soot.Unit;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.ccadroid.util.soot.SootUnit.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SootUnitBenchmark {
+    private ArrayList<Unit> units;
+    private ArrayList<Unit> invokeUnits;
+    private ArrayList<String> invokeStrings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Configuration.loadConfig();
+
+        units = JimpleFixtures.createUnits(1200);
+        invokeUnits = new ArrayList<>();
+        invokeStrings = new ArrayList<>();
+
+        for (Unit u : units) {
+            int unitType = getUnitType(u);
+            if (unitType == -1 || (unitType & INVOKE) != INVOKE) {
+                continue;
+            }
+
+            invokeUnits.add(u);
+            invokeStrings.add(u.toString());
+        }
+    }
+
+    @Benchmark
+    public void getUnitTypes(Blackhole blackhole) {
+        for (Unit u : units) {
+            blackhole.consume(getUnitType(u));
+        }
+    }
+
+    @Benchmark
+    public void getSignaturesOfUnits(Blackhole blackhole) {
+        for (Unit u : invokeUnits) {
+            blackhole.consume(getSignature(u));
+        }
+    }
+
+    @Benchmark
+    public void getSignaturesOfStrings(Blackhole blackhole) {
+        for (String s : invokeStrings) {
+            blackhole.consume(getSignature(s));
+        }
+    }
+}
\ No newline at end of file
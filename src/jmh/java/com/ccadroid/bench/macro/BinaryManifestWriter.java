@@ -0,0 +1,196 @@
+package com.ccadroid.bench.macro;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+
+public class BinaryManifestWriter {
+    private static final String ANDROID_NAMESPACE = "http://schemas.android.com/apk/res/android";
+    private static final int[] ATTRIBUTE_IDS = {0x01010003, 0x0101020c, 0x01010270}; // name, minSdkVersion, targetSdkVersion
+    private static final int RES_STRING_POOL_TYPE = 0x0001;
+    private static final int RES_XML_TYPE = 0x0003;
+    private static final int RES_XML_START_NAMESPACE_TYPE = 0x0100;
+    private static final int RES_XML_END_NAMESPACE_TYPE = 0x0101;
+    private static final int RES_XML_START_ELEMENT_TYPE = 0x0102;
+    private static final int RES_XML_END_ELEMENT_TYPE = 0x0103;
+    private static final int RES_XML_RESOURCE_MAP_TYPE = 0x0180;
+    private static final int TYPE_STRING = 0x03;
+    private static final int TYPE_INT_DEC = 0x10;
+    private static final int NO_ENTRY = -1;
+    private final ArrayList<String> strings;
+    private final ByteArrayOutputStream body;
+
+    public BinaryManifestWriter() {
+        strings = new ArrayList<>();
+        body = new ByteArrayOutputStream();
+
+        getStringIndex("name");
+        getStringIndex("minSdkVersion");
+        getStringIndex("targetSdkVersion");
+    }
+
+    public byte[] write(String packageName, ArrayList<String> activityNames, int sdkVersion) {
+        int prefix = getStringIndex("android");
+        int uri = getStringIndex(ANDROID_NAMESPACE);
+
+        writeNamespace(RES_XML_START_NAMESPACE_TYPE, prefix, uri);
+
+        startElement("manifest", new int[][]{{NO_ENTRY, getStringIndex("package"), TYPE_STRING, getStringIndex(packageName)}});
+        startElement("uses-sdk", new int[][]{{uri, 1, TYPE_INT_DEC, sdkVersion}, {uri, 2, TYPE_INT_DEC, sdkVersion}});
+        endElement("uses-sdk");
+        startElement("application", new int[0][]);
+        for (String s : activityNames) {
+            startElement("activity", new int[][]{{uri, 0, TYPE_STRING, getStringIndex(s)}});
+            endElement("activity");
+        }
+
+        endElement("application");
+        endElement("manifest");
+
+        writeNamespace(RES_XML_END_NAMESPACE_TYPE, prefix, uri);
+
+        byte[] stringPool = getStringPool();
+        byte[] resourceMap = getResourceMap();
+        byte[] elements = body.toByteArray();
+        int size = 8 + stringPool.length + resourceMap.length + elements.length;
+
+        ByteBuffer buffer = allocate(size);
+        buffer.putShort((short) RES_XML_TYPE);
+        buffer.putShort((short) 8);
+        buffer.putInt(size);
+        buffer.put(stringPool);
+        buffer.put(resourceMap);
+        buffer.put(elements);
+
+        return buffer.array();
+    }
+
+    private int getStringIndex(String str) {
+        int index = strings.indexOf(str);
+        if (index < 0) {
+            strings.add(str);
+            index = strings.size() - 1;
+        }
+
+        return index;
+    }
+
+    private void writeNamespace(int type, int prefix, int uri) {
+        ByteBuffer buffer = allocate(24);
+        buffer.putShort((short) type);
+        buffer.putShort((short) 16);
+        buffer.putInt(24);
+        buffer.putInt(1);
+        buffer.putInt(NO_ENTRY);
+        buffer.putInt(prefix);
+        buffer.putInt(uri);
+
+        body.writeBytes(buffer.array());
+    }
+
+    private void startElement(String name, int[][] attributes) { // each attribute is {namespace, name, type, data}
+        int nameIndex = getStringIndex(name);
+        int size = 36 + 20 * attributes.length;
+
+        ByteBuffer buffer = allocate(size);
+        buffer.putShort((short) RES_XML_START_ELEMENT_TYPE);
+        buffer.putShort((short) 16);
+        buffer.putInt(size);
+        buffer.putInt(1);
+        buffer.putInt(NO_ENTRY);
+        buffer.putInt(NO_ENTRY);
+        buffer.putInt(nameIndex);
+        buffer.putShort((short) 20);
+        buffer.putShort((short) 20);
+        buffer.putShort((short) attributes.length);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        buffer.putShort((short) 0);
+        for (int[] a : attributes) {
+            buffer.putInt(a[0]);
+            buffer.putInt(a[1]);
+            buffer.putInt(a[2] == TYPE_STRING ? a[3] : NO_ENTRY);
+            buffer.putShort((short) 8);
+            buffer.put((byte) 0);
+            buffer.put((byte) a[2]);
+            buffer.putInt(a[3]);
+        }
+
+        body.writeBytes(buffer.array());
+    }
+
+    private void endElement(String name) {
+        ByteBuffer buffer = allocate(24);
+        buffer.putShort((short) RES_XML_END_ELEMENT_TYPE);
+        buffer.putShort((short) 16);
+        buffer.putInt(24);
+        buffer.putInt(1);
+        buffer.putInt(NO_ENTRY);
+        buffer.putInt(NO_ENTRY);
+        buffer.putInt(getStringIndex(name));
+
+        body.writeBytes(buffer.array());
+    }
+
+    private byte[] getStringPool() {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int[] offsets = new int[strings.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = data.size();
+
+            String s = strings.get(i);
+            ByteBuffer buffer = allocate(2 + 2 * s.length() + 2); // UTF-16 length, chars and terminator
+            buffer.putShort((short) s.length());
+            for (char c : s.toCharArray()) {
+                buffer.putChar(c);
+            }
+
+            buffer.putShort((short) 0);
+            data.writeBytes(buffer.array());
+        }
+
+        while (data.size() % 4 != 0) {
+            data.write(0);
+        }
+
+        int headerSize = 28;
+        int stringsStart = headerSize + 4 * offsets.length;
+        int size = stringsStart + data.size();
+
+        ByteBuffer buffer = allocate(size);
+        buffer.putShort((short) RES_STRING_POOL_TYPE);
+        buffer.putShort((short) headerSize);
+        buffer.putInt(size);
+        buffer.putInt(offsets.length);
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.putInt(stringsStart);
+        buffer.putInt(0);
+        for (int o : offsets) {
+            buffer.putInt(o);
+        }
+
+        buffer.put(data.toByteArray());
+
+        return buffer.array();
+    }
+
+    private byte[] getResourceMap() {
+        int size = 8 + 4 * ATTRIBUTE_IDS.length;
+
+        ByteBuffer buffer = allocate(size);
+        buffer.putShort((short) RES_XML_RESOURCE_MAP_TYPE);
+        buffer.putShort((short) 8);
+        buffer.putInt(size);
+        for (int id : ATTRIBUTE_IDS) {
+            buffer.putInt(id);
+        }
+
+        return buffer.array();
+    }
+
+    private ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,239 @@
+package com.ccadroid.bench.macro;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.ccadroid.bench.macro.MacroRunner.*;
+
+public class MacroBenchmark {
+    private static final String[] PHASE_NAMES = {"parseApk", "loadClasses", "buildCallGraph", "slice", "checkRules"};
+    private static final String[] HEADER = {"apk", "methods", "cryptoSites", "parseApkMs", "loadClassesMs", "buildCallGraphMs", "sliceMs", "checkRulesMs", "totalMs", "peakHeapMb", "allocatedMb", "allocRateMbPerSec", "slicingCriteria", "findings"};
+    private static final int TOTAL_INDEX = 8;
+    private final HashMap<String, String> options;
+
+    public MacroBenchmark(HashMap<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        HashMap<String, String> options = new HashMap<>();
+        options.put("sizes", "100:5,1000:20,10000:50,100000:200");
+        options.put("repeat", "3");
+        options.put("rules", "rule");
+        options.put("out", "build/reports/macro");
+        options.put("baseline", "bench/macro-baseline.csv");
+        options.put("threshold", "0.10");
+        options.put("xmx", "8g");
+
+        for (String a : args) {
+            if (!a.startsWith("--")) {
+                continue;
+            }
+
+            String[] strArr = a.substring(2).split("=", 2);
+            options.put(strArr[0], (strArr.length > 1) ? strArr[1] : "true");
+        }
+
+        if (System.getenv("ANDROID_SDK_HOME") == null) {
+            System.out.println("Please set ANDROID_SDK_HOME environment variable!");
+            System.exit(1);
+        }
+
+        MacroBenchmark benchmark = new MacroBenchmark(options);
+        ArrayList<String[]> rows = benchmark.run();
+        boolean hasRegression = benchmark.compare(rows);
+
+        System.exit(hasRegression ? 2 : 0);
+    }
+
+    private ArrayList<String[]> run() throws IOException, InterruptedException {
+        Path outputDir = Paths.get(options.get("out"));
+        Path corpusDir = outputDir.resolve("corpus");
+        int repeat = Integer.parseInt(options.get("repeat"));
+
+        ArrayList<String[]> rows = new ArrayList<>();
+        for (String s : options.get("sizes").split(",")) {
+            String[] strArr = s.trim().split(":");
+            int methodCount = Integer.parseInt(strArr[0]);
+            int cryptoSiteCount = (strArr.length > 1) ? Integer.parseInt(strArr[1]) : 0;
+
+            File apkFile = SyntheticApkGenerator.generate(corpusDir, methodCount, cryptoSiteCount);
+            ArrayList<JSONObject> results = new ArrayList<>();
+            for (int i = 0; i < repeat; i++) {
+                JSONObject result = runEngine(apkFile, outputDir.resolve(apkFile.getName() + "." + i));
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+
+            if (results.isEmpty()) {
+                System.out.println("[*] ERROR : No successful run for " + apkFile.getName());
+                continue;
+            }
+
+            String[] row = getMedianRow(apkFile.getName(), methodCount, cryptoSiteCount, results);
+            rows.add(row);
+            System.out.println("[*] " + String.join(",", row));
+        }
+
+        Path resultPath = outputDir.resolve("results.csv");
+        writeRows(resultPath, rows);
+        System.out.println("[*] Results : " + resultPath);
+
+        return rows;
+    }
+
+    private JSONObject runEngine(File apkFile, Path prefix) throws IOException, InterruptedException {
+        Path resultPath = Paths.get(prefix + ".json");
+        Path logPath = Paths.get(prefix + ".log");
+        Files.deleteIfExists(resultPath);
+
+        String javaPath = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = System.getProperty("java.class.path");
+        ProcessBuilder builder = new ProcessBuilder(javaPath, "-Xmx" + options.get("xmx"), "-cp", classPath, MacroRunner.class.getName(), apkFile.getPath(), options.get("rules"), resultPath.toString());
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(logPath.toFile());
+
+        Process process = builder.start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || !Files.exists(resultPath)) {
+            System.out.println("[*] ERROR : Engine failed (exit code " + exitCode + "), see " + logPath);
+            return null;
+        }
+
+        return new JSONObject(Files.readString(resultPath));
+    }
+
+    private String[] getMedianRow(String apkName, int methodCount, int cryptoSiteCount, ArrayList<JSONObject> results) {
+        ArrayList<Double> totals = new ArrayList<>();
+        for (JSONObject r : results) {
+            JSONObject phases = r.getJSONObject(PHASES);
+            double total = 0;
+            for (String p : PHASE_NAMES) {
+                total += phases.optLong(p);
+            }
+
+            totals.add(total);
+        }
+
+        ArrayList<Double> sortedTotals = new ArrayList<>(totals);
+        Collections.sort(sortedTotals);
+        double medianTotal = sortedTotals.get(sortedTotals.size() / 2);
+        JSONObject median = results.get(totals.indexOf(medianTotal)); // the run with the median total time
+
+        JSONObject phases = median.getJSONObject(PHASES);
+        double peakHeapMb = median.getLong(PEAK_HEAP) / (1024.0 * 1024.0);
+        double allocatedMb = median.getLong(ALLOCATED) / (1024.0 * 1024.0);
+        double allocRate = (medianTotal == 0) ? 0 : allocatedMb / (medianTotal / 1000.0);
+
+        ArrayList<String> row = new ArrayList<>();
+        row.add(apkName);
+        row.add(String.valueOf(methodCount));
+        row.add(String.valueOf(cryptoSiteCount));
+        for (String p : PHASE_NAMES) {
+            row.add(String.valueOf(phases.optLong(p)));
+        }
+
+        row.add(String.valueOf((long) medianTotal));
+        row.add(String.format("%.1f", peakHeapMb));
+        row.add(String.format("%.1f", allocatedMb));
+        row.add(String.format("%.1f", allocRate));
+        row.add(String.valueOf(median.getInt(SLICING_CRITERIA)));
+        row.add(String.valueOf(median.getInt(FINDINGS)));
+
+        return row.toArray(new String[0]);
+    }
+
+    private boolean compare(ArrayList<String[]> rows) throws IOException {
+        Path baselinePath = Paths.get(options.get("baseline"));
+        if (options.containsKey("update-baseline")) {
+            Path parent = baselinePath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            Path resultPath = Paths.get(options.get("out"), "results.csv");
+            Files.copy(resultPath, baselinePath, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("[*] Baseline updated : " + baselinePath);
+            return false;
+        }
+
+        if (!Files.exists(baselinePath)) {
+            System.out.println("[*] No baseline : " + baselinePath + " (run with --update-baseline to create it)");
+            return false;
+        }
+
+        HashMap<String, String[]> baselineMap = new HashMap<>();
+        for (String[] r : readRows(baselinePath)) {
+            baselineMap.put(r[0], r);
+        }
+
+        double threshold = Double.parseDouble(options.get("threshold"));
+        boolean hasRegression = false;
+        System.out.println();
+        System.out.println("=======================================");
+        for (String[] r : rows) {
+            String[] b = baselineMap.get(r[0]);
+            if (b == null) {
+                System.out.println("[*] " + r[0] + " : no baseline entry");
+                continue;
+            }
+
+            for (int i = 3; i <= TOTAL_INDEX + 2; i++) { // phase times, total, peak heap and allocation
+                double current = Double.parseDouble(r[i]);
+                double baseline = Double.parseDouble(b[i]);
+                double ratio = (baseline == 0) ? 1 : current / baseline;
+                String mark = "";
+                if (ratio > 1 + threshold) {
+                    mark = " <- REGRESSION";
+                    hasRegression = true;
+                }
+
+                System.out.println(String.format("[*] %s %s : %s -> %s (%.2fx)%s", r[0], HEADER[i], b[i], r[i], ratio, mark));
+            }
+        }
+
+        System.out.println("=======================================");
+
+        return hasRegression;
+    }
+
+    private void writeRows(Path path, ArrayList<String[]> rows) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        Writer writer = Files.newBufferedWriter(path);
+        CSVWriter csvWriter = new CSVWriter(writer);
+        csvWriter.writeNext(HEADER, false);
+        for (String[] r : rows) {
+            csvWriter.writeNext(r, false);
+        }
+
+        csvWriter.close();
+    }
+
+    private List<String[]> readRows(Path path) throws IOException {
+        try {
+            Reader reader = Files.newBufferedReader(path);
+            CSVReader csvReader = new CSVReader(reader);
+            List<String[]> rows = csvReader.readAll();
+            csvReader.close();
+
+            return rows.subList(1, rows.size());
+        } catch (CsvException ignored) {
+            System.out.println("[*] ERROR : Cannot read baseline: " + path);
+            return new ArrayList<>();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.ccadroid.bench.macro;
+
+import com.ccadroid.EngineMain;
+import com.ccadroid.check.RuleChecker;
+import com.ccadroid.inspect.SlicingCriterion;
+import com.ccadroid.util.Configuration;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MacroRunner {
+    public static final String PHASES = "phases";
+    public static final String PEAK_HEAP = "peakHeap";
+    public static final String ALLOCATED = "allocated";
+    public static final String SLICING_CRITERIA = "slicingCriteria";
+    public static final String FINDINGS = "findings";
+    private static final long SAMPLE_INTERVAL_MS = 10;
+    private final LinkedHashMap<String, Long> phaseTimes;
+    private long startTime;
+
+    public MacroRunner() {
+        phaseTimes = new LinkedHashMap<>();
+    }
+
+    public static void main(String[] args) throws IOException { // runs one apk per JVM through EngineMain's pipeline
+        String apkPath = args[0];
+        File ruleFileDir = new File(args[1]);
+        String resultPath = args[2];
+
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = new Thread(() -> { // for the peak of total heap usage, not the sum of per-pool peaks
+            while (true) {
+                MemoryUsage usage = memoryMXBean.getHeapMemoryUsage();
+                peakHeap.accumulateAndGet(usage.getUsed(), Math::max);
+
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException ignored) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBytes = getAllocatedBytes(threadMXBean);
+
+        MacroRunner runner = new MacroRunner();
+        runner.start();
+
+        Configuration.loadConfig();
+        ArrayList<SlicingCriterion> slicingCriteria = EngineMain.analyze(apkPath, ruleFileDir, runner::stop);
+
+        long totalAllocatedBytes = getAllocatedBytes(threadMXBean) - allocatedBytes;
+        sampler.interrupt();
+        MemoryUsage usage = memoryMXBean.getHeapMemoryUsage();
+        peakHeap.accumulateAndGet(usage.getUsed(), Math::max);
+
+        RuleChecker ruleChecker = RuleChecker.getInstance();
+
+        JSONObject result = new JSONObject();
+        result.put(PHASES, runner.phaseTimes);
+        result.put(PEAK_HEAP, peakHeap.get());
+        result.put(ALLOCATED, totalAllocatedBytes);
+        result.put(SLICING_CRITERIA, slicingCriteria.size());
+        result.put(FINDINGS, ruleChecker.getFindings().size());
+
+        Files.write(Paths.get(resultPath), result.toString().getBytes(StandardCharsets.UTF_8));
+        System.exit(0);
+    }
+
+    private static long getAllocatedBytes(com.sun.management.ThreadMXBean threadMXBean) { // for live threads, as ended ones report no allocation
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+
+        long sum = 0;
+        for (long b : allocatedBytes) {
+            if (b > 0) {
+                sum += b;
+            }
+        }
+
+        return sum;
+    }
+
+    private void start() {
+        startTime = System.nanoTime();
+    }
+
+    private void stop(String phase) {
+        long endTime = System.nanoTime();
+        phaseTimes.put(phase, (endTime - startTime) / 1000000);
+        startTime = endTime;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.ccadroid.bench.macro;
+
+import org.jf.dexlib2.AccessFlags;
+import org.jf.dexlib2.DexFileFactory;
+import org.jf.dexlib2.Opcode;
+import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.iface.ClassDef;
+import org.jf.dexlib2.iface.Method;
+import org.jf.dexlib2.iface.MethodParameter;
+import org.jf.dexlib2.iface.instruction.Instruction;
+import org.jf.dexlib2.immutable.ImmutableClassDef;
+import org.jf.dexlib2.immutable.ImmutableDexFile;
+import org.jf.dexlib2.immutable.ImmutableMethod;
+import org.jf.dexlib2.immutable.ImmutableMethodImplementation;
+import org.jf.dexlib2.immutable.ImmutableMethodParameter;
+import org.jf.dexlib2.immutable.instruction.*;
+import org.jf.dexlib2.immutable.reference.ImmutableMethodReference;
+import org.jf.dexlib2.immutable.reference.ImmutableStringReference;
+import org.jf.dexlib2.immutable.reference.ImmutableTypeReference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class SyntheticApkGenerator {
+    public static final String PACKAGE_NAME = "com.bench.app";
+    private static final String PACKAGE_PATH = "Lcom/bench/app/";
+    private static final String ACTIVITY_TYPE = PACKAGE_PATH + "MainActivity;";
+    private static final String[] ALGORITHMS = {"DES", "AES/ECB/PKCS5Padding", "AES/CBC/PKCS5Padding", "RC4"};
+    private static final int METHODS_PER_CLASS = 50;
+    private static final int SDK_VERSION = 30;
+
+    private SyntheticApkGenerator() throws InstantiationException {
+        throw new InstantiationException();
+    }
+
+    public static File generate(Path outputDir, int methodCount, int cryptoSiteCount) throws IOException {
+        Files.createDirectories(outputDir);
+
+        String name = "synthetic-" + methodCount + "-" + cryptoSiteCount;
+        File dexFile = outputDir.resolve(name + ".dex").toFile();
+        File apkFile = outputDir.resolve(name + ".apk").toFile();
+        if (apkFile.exists()) {
+            return apkFile;
+        }
+
+        ArrayList<ClassDef> classDefs = createClassDefs(methodCount, cryptoSiteCount);
+        DexFileFactory.writeDexFile(dexFile.getPath(), new ImmutableDexFile(Opcodes.getDefault(), classDefs));
+
+        ArrayList<String> activityNames = new ArrayList<>(Collections.singletonList(PACKAGE_NAME + ".MainActivity"));
+        BinaryManifestWriter manifestWriter = new BinaryManifestWriter();
+        byte[] manifest = manifestWriter.write(PACKAGE_NAME, activityNames, SDK_VERSION);
+
+        OutputStream outputStream = Files.newOutputStream(apkFile.toPath());
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        zipOutputStream.putNextEntry(new ZipEntry("AndroidManifest.xml"));
+        zipOutputStream.write(manifest);
+        zipOutputStream.closeEntry();
+        zipOutputStream.putNextEntry(new ZipEntry("classes.dex"));
+        zipOutputStream.write(Files.readAllBytes(dexFile.toPath()));
+        zipOutputStream.closeEntry();
+        zipOutputStream.close();
+
+        return apkFile;
+    }
+
+    private static ArrayList<ClassDef> createClassDefs(int methodCount, int cryptoSiteCount) {
+        ArrayList<ClassDef> classDefs = new ArrayList<>();
+        ArrayList<Instruction> entryInstructions = new ArrayList<>();
+
+        int classCount = (methodCount + METHODS_PER_CLASS - 1) / METHODS_PER_CLASS;
+        int interval = (cryptoSiteCount == 0) ? Integer.MAX_VALUE : Math.max(1, methodCount / cryptoSiteCount);
+        int cryptoSites = 0;
+        for (int i = 0; i < classCount; i++) {
+            String classType = PACKAGE_PATH + "C" + i + ";";
+            int count = Math.min(METHODS_PER_CLASS, methodCount - i * METHODS_PER_CLASS);
+
+            ArrayList<Method> methods = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                int index = i * METHODS_PER_CLASS + j;
+                boolean isCryptoSite = (index % interval == 0 && cryptoSites < cryptoSiteCount);
+                String nextMethodName = (j + 1 < count) ? "m" + (j + 1) : null;
+
+                ArrayList<Instruction> instructions;
+                if (isCryptoSite) {
+                    instructions = createCryptoInstructions(ALGORITHMS[cryptoSites % ALGORITHMS.length]);
+                    cryptoSites++;
+                } else {
+                    instructions = createFillerInstructions(index);
+                }
+
+                if (nextMethodName != null) { // for call chains inside the class
+                    instructions.add(new ImmutableInstruction35c(Opcode.INVOKE_STATIC, 0, 0, 0, 0, 0, 0, new ImmutableMethodReference(classType, nextMethodName, Collections.<String>emptyList(), "V")));
+                }
+
+                instructions.add(new ImmutableInstruction10x(Opcode.RETURN_VOID));
+
+                ImmutableMethodImplementation implementation = new ImmutableMethodImplementation(4, instructions, null, null);
+                methods.add(new ImmutableMethod(classType, "m" + j, Collections.<MethodParameter>emptyList(), "V", AccessFlags.PUBLIC.getValue() | AccessFlags.STATIC.getValue(), null, null, implementation));
+            }
+
+            classDefs.add(new ImmutableClassDef(classType, AccessFlags.PUBLIC.getValue(), "Ljava/lang/Object;", null, null, null, null, methods));
+            entryInstructions.add(new ImmutableInstruction35c(Opcode.INVOKE_STATIC, 0, 0, 0, 0, 0, 0, new ImmutableMethodReference(classType, "m0", Collections.<String>emptyList(), "V")));
+        }
+
+        entryInstructions.add(new ImmutableInstruction10x(Opcode.RETURN_VOID));
+
+        List<ImmutableMethodParameter> parameters = Collections.singletonList(new ImmutableMethodParameter("Landroid/os/Bundle;", null, "bundle"));
+        ImmutableMethodImplementation implementation = new ImmutableMethodImplementation(2, entryInstructions, null, null);
+        Method onCreate = new ImmutableMethod(ACTIVITY_TYPE, "onCreate", parameters, "V", AccessFlags.PUBLIC.getValue(), null, null, implementation);
+        classDefs.add(new ImmutableClassDef(ACTIVITY_TYPE, AccessFlags.PUBLIC.getValue(), "Landroid/app/Activity;", null, null, null, null, Collections.singletonList(onCreate)));
+
+        return classDefs;
+    }
+
+    private static ArrayList<Instruction> createFillerInstructions(int index) {
+        ArrayList<Instruction> instructions = new ArrayList<>();
+        instructions.add(new ImmutableInstruction11n(Opcode.CONST_4, 0, index % 8));
+        instructions.add(new ImmutableInstruction21c(Opcode.CONST_STRING, 1, new ImmutableStringReference("value" + index)));
+
+        return instructions;
+    }
+
+    private static ArrayList<Instruction> createCryptoInstructions(String algorithm) {
+        String cipherType = "Ljavax/crypto/Cipher;";
+        String specType = "Ljavax/crypto/spec/SecretKeySpec;";
+
+        ArrayList<Instruction> instructions = new ArrayList<>();
+        instructions.add(new ImmutableInstruction21c(Opcode.CONST_STRING, 0, new ImmutableStringReference(algorithm)));
+        instructions.add(new ImmutableInstruction35c(Opcode.INVOKE_STATIC, 1, 0, 0, 0, 0, 0, new ImmutableMethodReference(cipherType, "getInstance", Collections.singletonList("Ljava/lang/String;"), cipherType)));
+        instructions.add(new ImmutableInstruction11x(Opcode.MOVE_RESULT_OBJECT, 0));
+        instructions.add(new ImmutableInstruction21c(Opcode.NEW_INSTANCE, 1, new ImmutableTypeReference(specType)));
+        instructions.add(new ImmutableInstruction21s(Opcode.CONST_16, 2, 16));
+        instructions.add(new ImmutableInstruction22c(Opcode.NEW_ARRAY, 2, 2, new ImmutableTypeReference("[B")));
+        instructions.add(new ImmutableInstruction21c(Opcode.CONST_STRING, 3, new ImmutableStringReference(algorithm.split("/")[0])));
+        instructions.add(new ImmutableInstruction35c(Opcode.INVOKE_DIRECT, 3, 1, 2, 3, 0, 0, new ImmutableMethodReference(specType, "<init>", List.of("[B", "Ljava/lang/String;"), "V")));
+        instructions.add(new ImmutableInstruction11n(Opcode.CONST_4, 2, 1));
+        instructions.add(new ImmutableInstruction35c(Opcode.INVOKE_VIRTUAL, 3, 0, 2, 1, 0, 0, new ImmutableMethodReference(cipherType, "init", List.of("I", "Ljava/security/Key;"), "V")));
+
+        return instructions;
+    }
+}
\ No newline at end of file
@@ -1,18 +1,27 @@
 package com.ccadroid;
 
 import com.ccadroid.check.RuleChecker;
+import com.ccadroid.incremental.IncrementalAnalyzer;
 import com.ccadroid.inspect.ApkParser;
+import com.ccadroid.inspect.ClassFilter;
 import com.ccadroid.inspect.CodeInspector;
+import com.ccadroid.inspect.PackageFilter;
 import com.ccadroid.inspect.SlicingCriteriaGenerator;
 import com.ccadroid.inspect.SlicingCriterion;
 import com.ccadroid.slice.ProgramSlicer;
 import com.ccadroid.slice.SliceDatabase;
 import com.ccadroid.slice.SliceMerger;
+import com.ccadroid.util.Budget;
 import com.ccadroid.util.Configuration;
+import com.ccadroid.util.Metrics;
 import com.ccadroid.util.soot.Soot;
+import org.json.JSONObject;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
 
 public class EngineMain {
 
@@ -27,6 +36,25 @@ public class EngineMain {
         String apkPath = args[0];
         System.out.println("[*] Analyzing APK : " + apkPath);
 
+        if (args.length < 2) {
+            System.out.println("[*] ERROR : No rule file dir was entered!");
+            System.exit(1);
+        }
+
+        File ruleFileDir = new File(args[1]);
+        if (!ruleFileDir.exists()) {
+            System.out.println("[*] ERROR : No rule file dir is exist!");
+            System.exit(1);
+        }
+
+        analyze(apkPath, ruleFileDir, phase -> {
+        });
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.dump();
+    }
+
+    public static ArrayList<SlicingCriterion> analyze(String apkPath, File ruleFileDir, Consumer<String> phaseListener) { // for callers timing each phase
         ApkParser apkParser = ApkParser.getInstance();
         apkParser.loadAPKFile(apkPath);
         apkParser.parseManifest();
@@ -36,37 +64,123 @@ public class EngineMain {
             System.out.println("[*] Package name : " + packageName);
         }
 
+        IncrementalAnalyzer incrementalAnalyzer = IncrementalAnalyzer.getInstance();
+        boolean isIncremental = IncrementalAnalyzer.isEnabled() && packageName != null;
+        if (isIncremental) {
+            apkParser.setDexClassDigests();
+            incrementalAnalyzer.loadSnapshot(packageName, ruleFileDir);
+        }
+
+        phaseListener.accept("parseApk");
+
+        Metrics metrics = Metrics.getInstance();
+        long startTime = metrics.startTimer();
         Soot.initialize(apkPath);
         Soot.loadDexClasses();
+        metrics.stopTimer("loadDexClasses", startTime);
 
-        CodeInspector codeInspector = CodeInspector.getInstance();
-        codeInspector.buildCallGraph();
+        PackageFilter packageFilter = PackageFilter.getInstance();
+        packageFilter.printStatistics();
+        phaseListener.accept("loadClasses");
 
-        if (args.length < 2) {
-            System.out.println("[*] ERROR : No rule file dir was entered!");
-            System.exit(1);
+        SlicingCriteriaGenerator slicingCriteriaGenerator = SlicingCriteriaGenerator.getInstance();
+        if (ClassFilter.isEnabled()) {
+            ArrayList<String> targetSignatures = slicingCriteriaGenerator.getTargetSignatures(ruleFileDir);
+            ClassFilter classFilter = ClassFilter.getInstance();
+            classFilter.setTargetClassNames(targetSignatures);
         }
 
-        File ruleFileDir = new File(args[1]);
-        if (!ruleFileDir.exists()) {
-            System.out.println("[*] ERROR : No rule file dir is exist!");
-            System.exit(1);
-        }
+        Budget budget = Budget.getInstance();
+        budget.startPhase("buildCallGraph");
+
+        startTime = metrics.startTimer();
+        CodeInspector codeInspector = CodeInspector.getInstance();
+        codeInspector.buildCallGraph();
+        metrics.stopTimer("buildCallGraph", startTime);
+        phaseListener.accept("buildCallGraph");
 
-        SlicingCriteriaGenerator slicingCriteriaGenerator = SlicingCriteriaGenerator.getInstance();
         ProgramSlicer slicer = ProgramSlicer.getInstance();
         SliceMerger sliceMerger = SliceMerger.getInstance();
         SliceDatabase database = SliceDatabase.getInstance();
         database.initialize();
 
+        startTime = metrics.startTimer();
         ArrayList<SlicingCriterion> slicingCriteria = slicingCriteriaGenerator.createSlicingCriteria(ruleFileDir);
-        for (SlicingCriterion sc : slicingCriteria) {
-            slicer.sliceStatements(sc);
-            sliceMerger.mergeSlices(sc);
+        if (isIncremental) {
+            slicingCriteria = incrementalAnalyzer.filterSlicingCriteria(slicingCriteria);
         }
 
+        metrics.stopTimer("createSlicingCriteria", startTime);
+        metrics.add("criteriaGenerated", slicingCriteria.size());
+
         RuleChecker ruleChecker = RuleChecker.getInstance();
-        ruleChecker.loadRules(ruleFileDir);
-        ruleChecker.checkRules();
+        boolean isStreaming = RuleChecker.isStreaming();
+        if (isStreaming) {
+            ruleChecker.loadRules(ruleFileDir);
+            ruleChecker.addPendingCriteria(slicingCriteria);
+        }
+
+        budget.startPhase("slice");
+
+        int criteriaLimit = slicingCriteria.size();
+        for (int i = 0; i < criteriaLimit; i++) {
+            if (budget.isExceeded()) {
+                if (!budget.degrade()) {
+                    break;
+                }
+
+                criteriaLimit = i + budget.getCriteriaLimit(criteriaLimit - i);
+            }
+
+            SlicingCriterion sc = slicingCriteria.get(i);
+            startTime = metrics.startTimer();
+            slicer.sliceStatements(sc);
+            metrics.stopTimer("sliceStatements", startTime);
+
+            startTime = metrics.startTimer();
+            HashSet<String> sliceNodeIds = sliceMerger.mergeSlices(sc);
+            metrics.stopTimer("mergeSlices", startTime);
+            codeInspector.unpinBodies(); // for bodies pinned until this criterion is merged
+
+            if (isStreaming) { // for findings as soon as each merged slice is ready
+                startTime = metrics.startTimer();
+                ruleChecker.checkRules(sc, sliceNodeIds);
+                metrics.stopTimer("checkRules", startTime);
+            }
+        }
+
+        phaseListener.accept("slice");
+        budget.startPhase("checkRules");
+
+        startTime = metrics.startTimer();
+        if (isStreaming) {
+            ruleChecker.checkDeferredRules();
+            metrics.stopTimer("checkDeferredRules", startTime);
+        } else {
+            ruleChecker.loadRules(ruleFileDir);
+            ruleChecker.checkRules();
+            metrics.stopTimer("checkRules", startTime);
+        }
+
+        if (isIncremental) {
+            ArrayList<JSONObject> findings = ruleChecker.getFindings();
+            incrementalAnalyzer.reportFindings(findings);
+        }
+
+        phaseListener.accept("checkRules");
+
+        if (budget.isIncomplete()) {
+            System.out.println("[*] WARNING : Analysis is incomplete due to budget in " + budget.getExceededPhases());
+        }
+
+        LinkedHashSet<String> unanalyzedClassNames = budget.getUnanalyzedClassNames();
+        if (!unanalyzedClassNames.isEmpty()) {
+            System.out.println("[*] WARNING : Classes not analyzed due to budget : " + unanalyzedClassNames.size());
+            for (String s : unanalyzedClassNames) {
+                System.out.println("    " + s);
+            }
+        }
+
+        return slicingCriteria;
     }
 }
\ No newline at end of file
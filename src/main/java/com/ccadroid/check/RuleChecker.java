@@ -1,6 +1,15 @@
 package com.ccadroid.check;
 
+import com.ccadroid.inspect.CodeInspector;
+import com.ccadroid.inspect.SlicingCriterion;
+import com.ccadroid.slice.SliceContent;
 import com.ccadroid.slice.SliceDatabase;
+import com.ccadroid.slice.SliceLine;
+import com.ccadroid.slice.SliceMerger;
+import com.ccadroid.slice.SliceQuery;
+import com.ccadroid.util.Budget;
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.Metrics;
 import com.ccadroid.util.soot.SootUnit;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.json.JSONArray;
@@ -30,22 +39,47 @@ import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static com.ccadroid.check.RuleConstants.*;
 import static com.ccadroid.slice.SliceConstants.*;
+import static com.ccadroid.slice.SliceQuery.*;
 import static com.ccadroid.util.soot.SootUnit.*;
 
 public class RuleChecker {
+    private static final int PARALLELISM = Integer.parseInt(Configuration.getProperty("check.parallelism"));
+    private static final int UPPER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.upperLevel"));
+    private static final int LOWER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.lowerLevel"));
     private static final Pattern BASE64_PATTERN = Pattern.compile("^([A-Za-z\\d+/]{4})*([A-Za-z\\d+/]{3}=|[A-Za-z\\d+/]{2}==)?$");
     private static final Pattern HEX_PATTERN = Pattern.compile("^[\\da-fA-F]+$");
+    private final CodeInspector codeInspector;
     private final SliceDatabase sliceDatabase;
+    private final SliceMerger sliceMerger;
     private final ArrayList<JSONObject> rules;
+    private final ArrayList<JSONObject> findings;
+    private final HashSet<String> checkedNodeIds;
+    private final LinkedHashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> deferredSlicesMap;
+    private final HashMap<String, HashSet<String>> pendingCallerNamesMap;
+    private final HashMap<String, Integer> pendingCallerCountMap;
+    private final ForkJoinPool pool;
 
     public RuleChecker() {
+        codeInspector = CodeInspector.getInstance();
         sliceDatabase = SliceDatabase.getInstance();
+        sliceMerger = SliceMerger.getInstance();
         rules = new ArrayList<>();
+        findings = new ArrayList<>();
+        checkedNodeIds = new HashSet<>();
+        deferredSlicesMap = new LinkedHashMap<>();
+        pendingCallerNamesMap = new HashMap<>();
+        pendingCallerCountMap = new HashMap<>();
+        pool = (PARALLELISM > 1) ? new ForkJoinPool(PARALLELISM) : null;
 
         License.iConfirmNonCommercialUse("CCA-Droid");
     }
@@ -54,6 +88,12 @@ public class RuleChecker {
         return RuleChecker.Holder.instance;
     }
 
+    public static boolean isStreaming() {
+        String streaming = Configuration.getProperty("check.streaming");
+
+        return Boolean.parseBoolean(streaming);
+    }
+
     public void loadRules(File ruleFileDir) {
         File[] ruleFiles = ruleFileDir.listFiles();
         if (ruleFiles == null) {
@@ -88,27 +128,26 @@ public class RuleChecker {
         });
     }
 
-    public void extractLines(JSONArray content, String targetVariable, String targetSignature, String targetParamNum, ArrayList<JSONObject> targetLines) {
-        JSONArray tempContent = new JSONArray(content);
-        int length = tempContent.length();
+    public void extractLines(SliceContent content, String targetVariable, String targetSignature, String targetParamNum, ArrayList<SliceLine> targetLines) {
+        int length = content.size();
 
-        JSONObject lastLine = tempContent.getJSONObject(length - 1);
+        SliceLine lastLine = content.get(length - 1);
         if (!targetLines.contains(lastLine)) {
             targetLines.add(lastLine);
         }
 
         for (int i = length - 1; i >= 0; i--) {
-            JSONObject line = (JSONObject) (tempContent.get(i));
+            SliceLine line = content.get(i);
             if (line.equals(lastLine)) {
                 continue;
             }
 
-            String unitStr = line.getString(UNIT_STRING);
+            String unitStr = line.getUnitString();
             if (targetVariable != null && !unitStr.contains(targetVariable)) {
                 continue;
             }
 
-            if (targetSignature != null && targetSignature.equals(line.getString(CALLER_NAME))) {
+            if (targetSignature != null && targetSignature.equals(line.getCallerName())) {
                 continue;
             }
 
@@ -117,7 +156,7 @@ public class RuleChecker {
             }
 
             targetLines.add(0, line);
-            int unitType = line.getInt(UNIT_TYPE);
+            int unitType = line.getUnitType();
             if ((unitType & INVOKE) == INVOKE) {
                 String signature = getSignature(unitStr);
                 String className = getClassName(signature);
@@ -157,7 +196,7 @@ public class RuleChecker {
                 }
             } else if (unitType == PARAMETER) {
                 String paramNum = getParamNumber(unitStr, unitType);
-                extractLines(content, null, line.getString(CALLER_NAME), paramNum, targetLines);
+                extractLines(content, null, line.getCallerName(), paramNum, targetLines);
             } else if (unitType == NEW_INSTANCE) {
                 break;
             } else if (unitType == ASSIGN_VARIABLE_CONSTANT) {
@@ -171,13 +210,25 @@ public class RuleChecker {
     }
 
     public void checkRules() {
-        HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> sliceMap = classifySlices();
+        SliceQuery query = isNull(CALLER_NAME);
+        ArrayList<JSONObject> mergedSlices = sliceDatabase.selectAll(query);
+        HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> sliceMap = classifySlices(mergedSlices);
         if (sliceMap.isEmpty()) {
             return;
         }
 
+        if (PARALLELISM > 1) {
+            checkRulesInParallel(sliceMap);
+            return;
+        }
+
+        Budget budget = Budget.getInstance();
         Set<Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>>> entries = sliceMap.entrySet();
         for (Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>> e : entries) {
+            if (budget.isExceeded() && !budget.degrade()) {
+                break;
+            }
+
             JSONObject root = e.getKey();
             HashMap<String, ArrayList<JSONObject>> targetSlicesMap = e.getValue();
 
@@ -186,21 +237,179 @@ public class RuleChecker {
         }
     }
 
-    private HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> classifySlices() {
+    public void addPendingCriteria(ArrayList<SlicingCriterion> slicingCriteria) { // for method slices later criteria may reach
+        HashMap<String, HashSet<String>> callerNamesMap = new HashMap<>();
+
+        for (SlicingCriterion sc : slicingCriteria) {
+            String nodeId = String.valueOf(sc.hashCode());
+            if (pendingCallerNamesMap.containsKey(nodeId)) {
+                continue;
+            }
+
+            String callerName = sc.getCallerName();
+            HashSet<String> callerNames = callerNamesMap.computeIfAbsent(callerName, this::getReachableCallerNames);
+            pendingCallerNamesMap.put(nodeId, callerNames);
+            for (String c : callerNames) {
+                pendingCallerCountMap.merge(c, 1, Integer::sum);
+            }
+        }
+    }
+
+    public void checkRules(SlicingCriterion slicingCriterion, HashSet<String> sliceNodeIds) {
+        String nodeId = String.valueOf(slicingCriterion.hashCode());
+        if (!checkedNodeIds.add(nodeId)) {
+            return;
+        }
+
+        ArrayList<JSONObject> mergedSlices = sliceDatabase.selectMergedSlices(nodeId);
+        if (mergedSlices.isEmpty()) {
+            releaseSlices(nodeId, sliceNodeIds);
+            return;
+        }
+
+        boolean isDeferred = false;
+        HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> sliceMap = classifySlices(mergedSlices);
+        Set<Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>>> entries = sliceMap.entrySet();
+        for (Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>> e : entries) {
+            JSONObject root = e.getKey();
+            HashMap<String, ArrayList<JSONObject>> targetSlicesMap = e.getValue();
+            if (targetSlicesMap.isEmpty()) {
+                continue;
+            }
+
+            for (String ruleName : List.of(INSECURE_RULE, SECURE_RULE)) {
+                if (!isDeferred(root, ruleName)) {
+                    checkRules(root, targetSlicesMap, ruleName);
+                    continue;
+                }
+
+                HashMap<String, ArrayList<JSONObject>> deferredSlices = deferredSlicesMap.computeIfAbsent(root, k -> new HashMap<>());
+                deferredSlices.putAll(targetSlicesMap);
+                isDeferred = true;
+            }
+        }
+
+        if (!isDeferred) { // for merged slices no rule needs anymore
+            sliceDatabase.delete(mergedSlices);
+            releaseSlices(nodeId, sliceNodeIds);
+        }
+    }
+
+    public void checkDeferredRules() {
+        Set<Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>>> entries = deferredSlicesMap.entrySet();
+        for (Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>> e : entries) {
+            JSONObject root = e.getKey();
+            HashMap<String, ArrayList<JSONObject>> targetSlicesMap = e.getValue();
+
+            for (String ruleName : List.of(INSECURE_RULE, SECURE_RULE)) {
+                if (isDeferred(root, ruleName)) {
+                    checkRules(root, targetSlicesMap, ruleName);
+                }
+            }
+        }
+
+        deferredSlicesMap.clear();
+    }
+
+    public ArrayList<JSONObject> getFindings() {
+        return findings;
+    }
+
+    private void checkRulesInParallel(HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> sliceMap) {
+        ConcurrentLinkedQueue<RuleResult> results = new ConcurrentLinkedQueue<>();
+        ArrayList<Future<Void>> futures = new ArrayList<>();
+        int index = 0;
+
+        Set<Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>>> entries1 = sliceMap.entrySet();
+        for (Map.Entry<JSONObject, HashMap<String, ArrayList<JSONObject>>> e1 : entries1) {
+            JSONObject root = e1.getKey();
+            HashMap<String, ArrayList<JSONObject>> targetSlicesMap = e1.getValue();
+            HashMap<String, JSONObject> targetSliceMap = sliceDatabase.selectByNodeIds(targetSlicesMap.keySet());
+
+            for (String ruleName : List.of(INSECURE_RULE, SECURE_RULE)) {
+                JSONObject rule = getRule(root, ruleName);
+                if (rule == null) {
+                    continue;
+                }
+
+                Object targetAlgorithms = getTargetValue(root, ruleName, TARGET_ALGORITHMS);
+                Object targetSignatures = getTargetValue(root, ruleName, TARGET_SIGNATURES);
+                boolean isSerial = hasSchemeTypes(rule); // for rules updating target strings in the database
+                if (isSerial) { // for the same reads and writes as the sequential check
+                    waitForTasks(futures);
+                }
+
+                Set<Map.Entry<String, ArrayList<JSONObject>>> entries2 = targetSlicesMap.entrySet();
+                for (Map.Entry<String, ArrayList<JSONObject>> e2 : entries2) {
+                    int taskIndex = index++;
+                    ArrayList<JSONObject> slices = e2.getValue();
+                    JSONObject targetSlice = targetSliceMap.get(e2.getKey());
+
+                    Callable<Void> task = () -> {
+                        Budget budget = Budget.getInstance();
+                        if (budget.isExceeded() && !budget.degrade()) {
+                            return null;
+                        }
+
+                        RuleResult result = checkRule(taskIndex, rule, targetAlgorithms, targetSignatures, slices, targetSlice);
+                        if (result != null) {
+                            results.add(result);
+                        }
+
+                        return null;
+                    };
+
+                    if (!isSerial) {
+                        futures.add(pool.submit(task));
+                        continue;
+                    }
+
+                    try {
+                        task.call();
+                    } catch (Exception e) {
+                        System.out.println("[*] ERROR : Cannot check rule: " + e);
+                    }
+                }
+            }
+        }
+
+        waitForTasks(futures);
+
+        ArrayList<RuleResult> sortedResults = new ArrayList<>(results);
+        sortedResults.sort(Comparator.comparingInt(r -> r.index)); // for the same order as the sequential check
+        for (RuleResult r : sortedResults) {
+            addFinding(r.ruleId, r.description, r.callerName, r.targetStatement, r.misusedLinesMap);
+            printResult(r.ruleId, r.description, r.callerName, r.targetStatement, r.misusedLinesMap);
+        }
+    }
+
+    private void waitForTasks(ArrayList<Future<Void>> futures) {
+        for (Future<Void> f : futures) {
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = (e.getCause() == null) ? e : e.getCause();
+                System.out.println("[*] ERROR : Cannot check rule in parallel: " + cause);
+            }
+        }
+
+        futures.clear();
+    }
+
+    HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> classifySlices(ArrayList<JSONObject> mergedSlices) {
         LinkedHashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> slicesMap = new LinkedHashMap<>();
 
-        List<String> query1 = List.of(String.format("/%s==null", CALLER_NAME));
-        ArrayList<JSONObject> result1 = sliceDatabase.selectAll(query1);
-        for (JSONObject s1 : result1) {
+        HashMap<SliceContent, long[]> fingerprintsMap = new HashMap<>();
+        for (JSONObject s1 : mergedSlices) {
             String nodeId = s1.getString(NODE_ID);
             String targetStatement = s1.getString(TARGET_STATEMENT);
             List<Object> targetParamNumbers = s1.getJSONArray(TARGET_PARAM_NUMBERS).toList();
-            JSONArray content = s1.getJSONArray(CONTENT);
+            SliceContent content = sliceDatabase.getContent(s1);
 
             for (JSONObject r : rules) {
                 HashMap<String, ArrayList<JSONObject>> map = slicesMap.containsKey(r) ? slicesMap.get(r) : new HashMap<>();
                 ArrayList<JSONObject> targetSlices = new ArrayList<>();
-                HashSet<Object> tempContent = new HashSet<>(content.toList());
+                long[] tempContent = fingerprintsMap.computeIfAbsent(content, SliceContent::getFingerprints);
 
                 JSONObject obj = r.getJSONObject(SLICING_SIGNATURES);
                 Map<String, Object> objAsMap = obj.toMap();
@@ -216,25 +425,25 @@ public class RuleChecker {
                         continue;
                     }
 
-                    ArrayList<JSONObject> result2 = getRelatedSlices(nodeId);
+                    ArrayList<JSONObject> result2 = sliceDatabase.selectRelated(nodeId);
                     for (JSONObject s2 : result2) {
-                        JSONArray content2 = s2.getJSONArray(CONTENT);
+                        SliceContent content2 = sliceDatabase.getContent(s2);
                         if (content.equals(content2)) {
                             targetSlices.add(s2);
                             continue;
                         }
 
-                        ArrayList<Object> tempContent2 = new ArrayList<>(content2.toList());
-                        if (tempContent.containsAll(tempContent2)) {
+                        long[] tempContent2 = fingerprintsMap.computeIfAbsent(content2, SliceContent::getFingerprints);
+                        if (containsAll(tempContent, tempContent2)) {
                             continue;
                         }
 
-                        tempContent.retainAll(tempContent2);
-                        if (!tempContent.isEmpty()) {
+                        tempContent = retainAll(tempContent, tempContent2);
+                        if (tempContent.length > 0) {
                             continue;
                         }
 
-                        tempContent.addAll(tempContent2);
+                        tempContent = tempContent2;
                         targetSlices.add(s2);
                     }
 
@@ -248,39 +457,39 @@ public class RuleChecker {
         return slicesMap;
     }
 
-    private ArrayList<JSONObject> getRelatedSlices(String nodeId) {
-        List<String> query1 = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s==null", CALLER_NAME));
-        ArrayList<JSONObject> mergedSlices = sliceDatabase.selectAll(query1);
-        ArrayList<JSONObject> slices = new ArrayList<>(mergedSlices);
-
-        ArrayList<String> queue = new ArrayList<>();
-        queue.add(nodeId);
-
-        while (!queue.isEmpty()) {
-            String id = queue.remove(0);
-            List<String> query2 = List.of(String.format("%s==%s", NODE_ID, id), String.format("/%s!=null", CALLER_NAME));
-            JSONObject slice = sliceDatabase.selectOne(query2);
-            if (slice == null) {
-                continue;
+    private boolean containsAll(long[] fingerprints1, long[] fingerprints2) {
+        int i = 0;
+        for (long f : fingerprints2) { // for sorted arrays
+            while (i < fingerprints1.length && fingerprints1[i] < f) {
+                i++;
             }
 
-            if (slices.contains(slice)) {
-                continue;
-            } else if (!id.equals(nodeId) && !slices.contains(slice)) {
-                slices.add(slice);
+            if (i == fingerprints1.length || fingerprints1[i] != f) {
+                return false;
             }
+        }
 
-            JSONArray relatedNodeIds = slice.getJSONArray(RELATED_NODE_IDS);
-            if (relatedNodeIds.isEmpty()) {
-                break;
-            }
+        return true;
+    }
 
-            for (Object o : relatedNodeIds) {
-                queue.add((String) o);
+    private long[] retainAll(long[] fingerprints1, long[] fingerprints2) {
+        long[] result = new long[Math.min(fingerprints1.length, fingerprints2.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < fingerprints1.length && j < fingerprints2.length) {
+            if (fingerprints1[i] < fingerprints2[j]) {
+                i++;
+            } else if (fingerprints1[i] > fingerprints2[j]) {
+                j++;
+            } else {
+                result[count++] = fingerprints1[i];
+                i++;
+                j++;
             }
         }
 
-        return slices;
+        return Arrays.copyOf(result, count);
     }
 
     private HashMap<String, LinkedHashSet<String>> findMisusedLines(Object conditions, Object targetAlgorithms, Object targetSignatures, ArrayList<JSONObject> slices) {
@@ -294,7 +503,7 @@ public class RuleChecker {
             for (JSONObject s : slices) {
                 String callerName = getCallerName(s);
                 boolean hasCipherAndMac = hasCipherAndMac(callerName);
-                JSONArray content = s.getJSONArray(CONTENT);
+                SliceContent content = sliceDatabase.getContent(s);
                 LinkedHashSet<String> unitStrings = new LinkedHashSet<>();
 
                 if (((obj.has(TARGET_SCHEME_TYPES) && !targetSignatureMap.isEmpty()) || obj.has(REQUIRED_SCHEME_TYPES)) && !foundKeys.contains(TARGET_SCHEME_TYPES)) {
@@ -354,7 +563,7 @@ public class RuleChecker {
             for (JSONObject s : slices) {
                 String callerName = getCallerName(s);
                 boolean hasCipherAndMac = hasCipherAndMac(callerName);
-                JSONArray content = s.getJSONArray(CONTENT);
+                SliceContent content = sliceDatabase.getContent(s);
                 LinkedHashSet<String> unitStrings = new LinkedHashSet<>();
 
                 Object obj1 = getValue(arr, TARGET_SCHEME_TYPES);
@@ -429,49 +638,126 @@ public class RuleChecker {
     }
 
     private void checkRules(JSONObject root, HashMap<String, ArrayList<JSONObject>> targetSlicesMap, String ruleName) {
-        if (!root.has(ruleName)) {
+        JSONObject rule = getRule(root, ruleName);
+        if (rule == null) {
             return;
         }
 
+        Object targetAlgorithms = getTargetValue(root, ruleName, TARGET_ALGORITHMS);
+        Object targetSignatures = getTargetValue(root, ruleName, TARGET_SIGNATURES);
+        HashMap<String, JSONObject> targetSliceMap = sliceDatabase.selectByNodeIds(targetSlicesMap.keySet());
+        Set<Map.Entry<String, ArrayList<JSONObject>>> entries = targetSlicesMap.entrySet();
+        for (Map.Entry<String, ArrayList<JSONObject>> e : entries) {
+            ArrayList<JSONObject> slices = e.getValue();
+            JSONObject targetSlice = targetSliceMap.get(e.getKey());
+            RuleResult r = checkRule(0, rule, targetAlgorithms, targetSignatures, slices, targetSlice);
+            if (r == null) {
+                continue;
+            }
+
+            addFinding(r.ruleId, r.description, r.callerName, r.targetStatement, r.misusedLinesMap);
+            printResult(r.ruleId, r.description, r.callerName, r.targetStatement, r.misusedLinesMap);
+        }
+    }
+
+    private RuleResult checkRule(int index, JSONObject rule, Object targetAlgorithms, Object targetSignatures, ArrayList<JSONObject> slices, JSONObject targetSlice) {
+        Metrics metrics = Metrics.getInstance();
+        metrics.increment("rulesEvaluated");
+
+        Object conditions = rule.get(CONDITIONS);
+        HashMap<String, LinkedHashSet<String>> misusedLinesMap = findMisusedLines(conditions, targetAlgorithms, targetSignatures, slices);
+        if (misusedLinesMap.isEmpty() || targetSlice == null) {
+            return null;
+        }
+
+        String ruleId = rule.getString(RULE_ID);
+        String description = rule.getString(DESCRIPTION);
+        String callerName = targetSlice.getString(CALLER_NAME);
+        String targetStatement = targetSlice.getString(TARGET_STATEMENT);
+
+        return new RuleResult(index, ruleId, description, callerName, targetStatement, misusedLinesMap);
+    }
+
+    private JSONObject getRule(JSONObject root, String ruleName) {
+        if (!root.has(ruleName)) {
+            return null;
+        }
+
         JSONObject rule = root.getJSONObject(ruleName);
-        if (!rule.has(CONDITIONS)) {
-            return;
+
+        return rule.has(CONDITIONS) ? rule : null;
+    }
+
+    private Object getTargetValue(JSONObject root, String ruleName, String key) {
+        if (!ruleName.equals(INSECURE_RULE)) {
+            return null;
+        }
+
+        JSONObject secureRule = root.getJSONObject(SECURE_RULE);
+
+        return getValue(secureRule, key);
+    }
+
+    private boolean isDeferred(JSONObject root, String ruleName) { // for rules reading slices of other criteria
+        JSONObject rule = getRule(root, ruleName);
+        if (rule == null) {
+            return false;
         }
 
-        Object targetAlgorithms = null;
-        Object targetSignatures = null;
-        if (ruleName.equals(INSECURE_RULE)) {
-            JSONObject secureRule = root.getJSONObject(SECURE_RULE);
-            targetAlgorithms = getValue(secureRule, TARGET_ALGORITHMS);
-            targetSignatures = getValue(secureRule, TARGET_SIGNATURES);
+        if (hasSchemeTypes(rule)) {
+            return true;
         }
 
         Object conditions = rule.get(CONDITIONS);
-        Set<Map.Entry<String, ArrayList<JSONObject>>> entries = targetSlicesMap.entrySet();
-        for (Map.Entry<String, ArrayList<JSONObject>> e : entries) {
-            ArrayList<JSONObject> slices = e.getValue();
-            HashMap<String, LinkedHashSet<String>> misusedLinesMap = findMisusedLines(conditions, targetAlgorithms, targetSignatures, slices);
-            if (misusedLinesMap.isEmpty()) {
-                continue;
-            }
 
-            String nodeId = e.getKey();
-            List<String> query = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s!=null", CALLER_NAME));
-            JSONObject targetSlice = sliceDatabase.selectOne(query);
-            if (targetSlice == null) {
-                continue;
+        return getTargetValue(root, ruleName, TARGET_SIGNATURES) != null && getValue(conditions, TARGET_CONSTANT) != null;
+    }
+
+    private HashSet<String> getReachableCallerNames(String callerName) {
+        HashSet<String> callerNames = codeInspector.traverseAllCallers(callerName);
+        callerNames.add(callerName);
+
+        int depth = Math.max(UPPER_LEVEL, -LOWER_LEVEL);
+        HashSet<String> signatures = codeInspector.traverseCallees(callerName, depth);
+        callerNames.addAll(signatures);
+
+        return callerNames;
+    }
+
+    private void releaseSlices(String nodeId, HashSet<String> sliceNodeIds) { // for method slices no later criterion can reach
+        HashSet<String> callerNames = pendingCallerNamesMap.remove(nodeId);
+        if (callerNames != null) {
+            for (String c : callerNames) {
+                pendingCallerCountMap.computeIfPresent(c, (k, v) -> (v > 1) ? v - 1 : null);
             }
+        }
 
-            String ruleId = rule.getString(RULE_ID);
-            String description = rule.getString(DESCRIPTION);
-            String callerName = targetSlice.getString(CALLER_NAME);
-            String targetStatement = targetSlice.getString(TARGET_STATEMENT);
+        HashSet<String> nodeIds = new HashSet<>(sliceNodeIds);
+        nodeIds.remove(nodeId); // for target strings other criteria look up in leaf slices
 
-            printResult(ruleId, description, callerName, targetStatement, misusedLinesMap);
+        ArrayList<JSONObject> slices = new ArrayList<>();
+        HashMap<String, JSONObject> sliceMap = sliceDatabase.selectByNodeIds(nodeIds);
+        Collection<JSONObject> values = sliceMap.values();
+        for (JSONObject s : values) {
+            String callerName = s.getString(CALLER_NAME);
+            if (!pendingCallerCountMap.containsKey(callerName)) {
+                slices.add(s);
+            }
         }
+
+        sliceDatabase.delete(slices);
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.add("methodSlicesReleased", slices.size());
+    }
+
+    private boolean hasSchemeTypes(JSONObject rule) {
+        Object conditions = rule.get(CONDITIONS);
+
+        return getValue(conditions, TARGET_SCHEME_TYPES) != null || getValue(conditions, REQUIRED_SCHEME_TYPES) != null;
     }
 
-    private String checkSchemeTypes(JSONObject slice, JSONArray content, Object object, HashMap<String, String> targetSignatureMap) {
+    private String checkSchemeTypes(JSONObject slice, SliceContent content, Object object, HashMap<String, String> targetSignatureMap) {
         if (object == null) {
             return null;
         }
@@ -488,13 +774,13 @@ public class RuleChecker {
         String targetParamNumber = null;
         String targetSignature = null;
 
-        for (int i = content.length() - 1; i > -1; i--) {
-            JSONObject line = content.getJSONObject(i);
-            String unitStr = line.getString(UNIT_STRING);
-            int unitType = line.getInt(UNIT_TYPE);
+        for (int i = content.size() - 1; i > -1; i--) {
+            SliceLine line = content.get(i);
+            String unitStr = line.getUnitString();
+            int unitType = line.getUnitType();
             if (targetVariable != null && unitStr.startsWith(targetVariable) && unitType == PARAMETER) {
                 targetParamNumber = getParamNumber(unitStr, unitType);
-                targetSignature = line.getString(CALLER_NAME);
+                targetSignature = line.getCallerName();
                 continue;
             }
 
@@ -515,8 +801,7 @@ public class RuleChecker {
                 }
 
                 if (targetVariable != null && ((unitStr.startsWith(targetVariable) && typeAsList.contains(ENCRYPT_THEN_MAC)) || (!unitStr.startsWith(targetVariable) && typeAsList.contains(ENCRYPT_AND_MAC)))) {
-                    List<String> query = List.of(String.format("%s==%s", TARGET_STRING, unitStr));
-                    sliceDatabase.update(slice, query);
+                    sliceDatabase.update(slice, TARGET_STRING, unitStr);
 
                     return unitStr;
                 }
@@ -535,8 +820,7 @@ public class RuleChecker {
                 }
 
                 if (targetVariable != null && unitStr.startsWith(targetVariable) && typeAsList.contains(MAC_THEN_ENCRYPT)) {
-                    List<String> query = List.of(String.format("%s==%s", TARGET_STRING, unitStr));
-                    sliceDatabase.update(slice, query);
+                    sliceDatabase.update(slice, TARGET_STRING, unitStr);
 
                     return unitStr;
                 }
@@ -552,8 +836,7 @@ public class RuleChecker {
                 }
 
                 if ((unitStr.startsWith(targetVariable) && typeAsList.contains(ENCRYPT_THEN_MAC)) || (!unitStr.startsWith(targetVariable) && typeAsList.contains(ENCRYPT_AND_MAC))) {
-                    List<String> query = List.of(String.format("%s==%s", TARGET_STRING, unitStr));
-                    sliceDatabase.update(slice, query);
+                    sliceDatabase.update(slice, TARGET_STRING, unitStr);
 
                     return unitStr;
                 }
@@ -563,7 +846,7 @@ public class RuleChecker {
         return null;
     }
 
-    private String checkAlgorithms(JSONArray content, Object object, Object targetAlgorithms) {
+    private String checkAlgorithms(SliceContent content, Object object, Object targetAlgorithms) {
         String oldUnitStr = checkAlgorithms(content, object);
         if (targetAlgorithms == null) {
             return oldUnitStr;
@@ -574,7 +857,7 @@ public class RuleChecker {
         return findLateUnitString(content, oldUnitStr, newUnitStr);
     }
 
-    private String checkAlgorithms(JSONArray content, Object object) {
+    private String checkAlgorithms(SliceContent content, Object object) {
         if (object == null) {
             return null;
         }
@@ -582,15 +865,13 @@ public class RuleChecker {
         JSONArray arr = (object instanceof JSONObject) ? ((JSONObject) object).getJSONArray(TARGET_ALGORITHMS) : (JSONArray) object;
         int arrSize = arr.length();
 
-        for (Object l : content) {
-            JSONObject line = (JSONObject) l;
-            if (!line.has(CONSTANTS)) {
+        for (SliceLine line : content) {
+            if (!line.hasConstants()) {
                 continue;
             }
 
-            JSONArray constants = line.getJSONArray(CONSTANTS);
-            for (Object o : constants) {
-                String s = (String) o;
+            List<String> constants = line.getConstants();
+            for (String s : constants) {
                 s = s.replace("\"", "");
                 if (!isAlgorithm(s)) {
                     continue;
@@ -613,7 +894,7 @@ public class RuleChecker {
                     }
 
                     if (flag) {
-                        return line.getString(UNIT_STRING);
+                        return line.getUnitString();
                     }
                 }
             }
@@ -622,7 +903,7 @@ public class RuleChecker {
         return null;
     }
 
-    private String checkSignatures(JSONArray content, Object object) {
+    private String checkSignatures(SliceContent content, Object object) {
         if (object == null) {
             return null;
         }
@@ -630,15 +911,14 @@ public class RuleChecker {
         JSONArray arr = (object instanceof JSONObject) ? ((JSONObject) object).getJSONArray(TARGET_SIGNATURES) : (JSONArray) object;
         List<Object> objects = arr.toList();
 
-        JSONArray tempContent = new JSONArray(content);
-        for (int i = tempContent.length() - 1; i >= 0; i--) {
-            JSONObject line = (JSONObject) (tempContent.get(i));
-            int unitType = line.getInt(UNIT_TYPE);
+        for (int i = content.size() - 1; i >= 0; i--) {
+            SliceLine line = content.get(i);
+            int unitType = line.getUnitType();
             if ((unitType & INVOKE) != INVOKE) {
                 continue;
             }
 
-            String unitStr = line.getString(UNIT_STRING);
+            String unitStr = line.getUnitString();
             String signature = SootUnit.getSignature(unitStr);
             if (objects.contains(signature)) {
                 return unitStr;
@@ -648,8 +928,8 @@ public class RuleChecker {
         return null;
     }
 
-    private String checkConstant(JSONObject slice, JSONArray content, Object object, Object targetSignatures) {
-        ArrayList<JSONObject> targetLines = new ArrayList<>();
+    private String checkConstant(JSONObject slice, SliceContent content, Object object, Object targetSignatures) {
+        ArrayList<SliceLine> targetLines = new ArrayList<>();
 
         List<Object> targetParamNumbers = slice.getJSONArray(TARGET_PARAM_NUMBERS).toList();
         JSONArray targetVariables = slice.getJSONArray(TARGET_VARIABLES);
@@ -673,7 +953,7 @@ public class RuleChecker {
         return findLateUnitString(content, oldUnitStr, newUnitStr);
     }
 
-    private String checkConstant(ArrayList<JSONObject> content, String targetVariable, Object object) {
+    private String checkConstant(ArrayList<SliceLine> content, String targetVariable, Object object) {
         if (object == null) {
             return null;
         }
@@ -685,14 +965,13 @@ public class RuleChecker {
         String size = obj.has(TARGET_CONSTANT_SIZE) ? obj.getString(TARGET_CONSTANT_SIZE) : null;
 
         for (int i = 0; i < content.size(); i++) {
-            JSONObject line = content.get(i);
-            if (!line.has(CONSTANTS)) {
+            SliceLine line = content.get(i);
+            if (!line.hasConstants()) {
                 continue;
             }
 
-            JSONArray constants = line.getJSONArray(CONSTANTS);
-            for (Object o : constants) {
-                String s = (String) o;
+            List<String> constants = line.getConstants();
+            for (String s : constants) {
                 s = s.replace("\"", "");
                 if (i == content.size() - 1 && !targetVariable.contains(s)) {
                     continue;
@@ -739,15 +1018,15 @@ public class RuleChecker {
                     }
                 }
 
-                return line.getString(UNIT_STRING);
+                return line.getUnitString();
             }
         }
 
         return null;
     }
 
-    private LinkedHashSet<String> checkArray(JSONObject slice, JSONArray content, Object object, Object targetSignatures) {
-        ArrayList<JSONObject> targetLines = new ArrayList<>();
+    private LinkedHashSet<String> checkArray(JSONObject slice, SliceContent content, Object object, Object targetSignatures) {
+        ArrayList<SliceLine> targetLines = new ArrayList<>();
 
         List<Object> targetParamNumbers = slice.getJSONArray(TARGET_PARAM_NUMBERS).toList();
         JSONArray targetVariables = slice.getJSONArray(TARGET_VARIABLES);
@@ -782,7 +1061,7 @@ public class RuleChecker {
         return findLateUnitString(content, oldUnitStr, newUnitStr) == null ? null : newUnitStrings;
     }
 
-    private LinkedHashSet<String> checkArray(ArrayList<JSONObject> content, Object object) {
+    private LinkedHashSet<String> checkArray(ArrayList<SliceLine> content, Object object) {
         if (object == null) {
             return null;
         }
@@ -790,21 +1069,21 @@ public class RuleChecker {
         JSONObject obj = (JSONObject) object;
         LinkedHashSet<String> unitStrings = new LinkedHashSet<>();
 
-        JSONObject firstLine = content.get(0);
-        int firstUnitType = firstLine.getInt(UNIT_TYPE);
+        SliceLine firstLine = content.get(0);
+        int firstUnitType = firstLine.getUnitType();
         if (firstUnitType != NEW_ARRAY) {
             return unitStrings;
         }
 
-        JSONObject secondLine = content.get(1);
-        int secondUnitType = secondLine.getInt(UNIT_TYPE);
-        JSONObject lastLine = content.get(content.size() - 1);
-        int lastUnitType = lastLine.getInt(UNIT_TYPE);
+        SliceLine secondLine = content.get(1);
+        int secondUnitType = secondLine.getUnitType();
+        SliceLine lastLine = content.get(content.size() - 1);
+        int lastUnitType = lastLine.getUnitType();
 
         String length = obj.has(TARGET_CONSTANT_LENGTH) ? obj.getString(TARGET_CONSTANT_LENGTH) : null;
         String size = obj.has(TARGET_CONSTANT_SIZE) ? obj.getString(TARGET_CONSTANT_SIZE) : null;
         if (length != null || size != null) {
-            String unitStr = firstLine.getString(UNIT_STRING);
+            String unitStr = firstLine.getUnitString();
             String arraySize = getArraySize(unitStr, firstUnitType);
             if (isVariableStr(arraySize)) {
                 return unitStrings;
@@ -821,12 +1100,12 @@ public class RuleChecker {
         }
 
         if (secondUnitType == ASSIGN_ARRAY_CONSTANT && lastUnitType == ASSIGN_SIGNATURE_VARIABLE) {
-            for (JSONObject l : content) {
-                String unitStr = l.getString(UNIT_STRING);
+            for (SliceLine l : content) {
+                String unitStr = l.getUnitString();
                 unitStrings.add(unitStr);
             }
         } else {
-            String unitStr = firstLine.getString(UNIT_STRING);
+            String unitStr = firstLine.getUnitString();
             unitStrings.add(unitStr);
         }
 
@@ -871,15 +1150,14 @@ public class RuleChecker {
 
         for (JSONObject s : slices) {
             String callerName = getCallerName(s);
-            JSONArray content = s.getJSONArray(CONTENT);
-            for (Object o : content) {
-                JSONObject line = (JSONObject) o;
-                int unitType = line.getInt(UNIT_TYPE);
+            SliceContent content = sliceDatabase.getContent(s);
+            for (SliceLine line : content) {
+                int unitType = line.getUnitType();
                 if ((unitType & INVOKE) != INVOKE) {
                     continue;
                 }
 
-                String unitStr = line.getString(UNIT_STRING);
+                String unitStr = line.getUnitString();
                 String signature = getSignature(unitStr);
                 String className = getClassName(signature);
                 String methodName = getMethodName(signature);
@@ -901,8 +1179,8 @@ public class RuleChecker {
     }
 
     private boolean hasCipherAndMac(String callerName) {
-        List<String> query1 = List.of(String.format("%s==%s", CALLER_NAME, callerName), String.format("%s in %s", UNIT_STRING, "javax.crypto.Cipher"));
-        List<String> query2 = List.of(String.format("%s==%s", CALLER_NAME, callerName), String.format("%s in %s", UNIT_STRING, "javax.crypto.Mac"));
+        SliceQuery query1 = eq(CALLER_NAME, callerName).and(containsToken(UNIT_STRING, "javax.crypto.Cipher"));
+        SliceQuery query2 = eq(CALLER_NAME, callerName).and(containsToken(UNIT_STRING, "javax.crypto.Mac"));
         ArrayList<JSONObject> cipherResults = sliceDatabase.selectAll(query1);
         ArrayList<JSONObject> macResults = sliceDatabase.selectAll(query2);
 
@@ -916,8 +1194,8 @@ public class RuleChecker {
             callerName = slice.getString(CALLER_NAME);
         } else {
             String nodeId = slice.getString(NODE_ID);
-            List<String> query = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s!=null", CALLER_NAME));
-            JSONObject targetSlice = sliceDatabase.selectOne(query);
+            HashMap<String, JSONObject> targetSliceMap = sliceDatabase.selectByNodeIds(List.of(nodeId));
+            JSONObject targetSlice = targetSliceMap.get(nodeId);
             callerName = targetSlice == null ? null : targetSlice.getString(CALLER_NAME);
         }
 
@@ -934,14 +1212,14 @@ public class RuleChecker {
         targetSignatures.add("<javax.crypto.Mac: void doFinal(byte[],int)>");
 
         for (String s : targetSignatures) {
-            List<String> query1 = List.of(String.format("%s in %s", CALLER_NAME, className), String.format("%s==%s", TARGET_STATEMENT, s));
+            SliceQuery query1 = containsToken(CALLER_NAME, className).and(eq(TARGET_STATEMENT, s));
             JSONObject targetSlice1 = sliceDatabase.selectOne(query1);
             if (targetSlice1 == null) {
                 continue;
             }
 
             String nodeId = targetSlice1.getString(NODE_ID);
-            List<String> query2 = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s!=null", TARGET_STRING));
+            SliceQuery query2 = eq(NODE_ID, nodeId).and(isNotNull(TARGET_STRING));
             JSONObject targetSlice2 = sliceDatabase.selectOne(query2);
             if (targetSlice2 == null) {
                 continue;
@@ -974,6 +1252,22 @@ public class RuleChecker {
         return strings;
     }
 
+    private void addFinding(String ruleId, String description, String callerName, String targetStatement, HashMap<String, LinkedHashSet<String>> misusedLinesMap) {
+        JSONObject finding = new JSONObject();
+        finding.put(RULE_ID, ruleId);
+        finding.put(DESCRIPTION, description);
+        finding.put(CALLER_NAME, callerName);
+        finding.put(TARGET_STATEMENT, targetStatement);
+        finding.put(TARGET_LINES, misusedLinesMap);
+
+        Budget budget = Budget.getInstance();
+        if (budget.isIncomplete()) { // for findings under a degraded analysis
+            finding.put(INCOMPLETE, true);
+        }
+
+        findings.add(finding);
+    }
+
     private void printResult(String ruleId, String description, String callerName, String targetStatement, HashMap<String, LinkedHashSet<String>> misusedLinesMap) {
         System.out.println();
         System.out.println("=======================================");
@@ -988,27 +1282,32 @@ public class RuleChecker {
                 System.out.println(s);
             }
         });
+
+        Budget budget = Budget.getInstance();
+        if (budget.isIncomplete()) {
+            System.out.println("[*] Incomplete: true");
+        }
+
         System.out.println("=======================================");
     }
 
-    private String findLateUnitString(JSONArray content, String unitStr1, String unitStr2) {
-        JSONObject line1 = findLine(content, unitStr1);
-        JSONObject line2 = findLine(content, unitStr2);
+    private String findLateUnitString(SliceContent content, String unitStr1, String unitStr2) {
+        SliceLine line1 = findLine(content, unitStr1);
+        SliceLine line2 = findLine(content, unitStr2);
         if (line1 == null || line2 == null || line1.equals(line2)) {
             return unitStr1;
         }
 
-        return line1.getString(CALLER_NAME).equals(line2.getString(CALLER_NAME)) && line1.getInt(LINE_NUMBER) <= line2.getInt(LINE_NUMBER) ? null : unitStr1;
+        return line1.getCallerId() == line2.getCallerId() && line1.getLineNumber() <= line2.getLineNumber() ? null : unitStr1;
     }
 
-    private JSONObject findLine(JSONArray content, String targetUnitStr) {
+    private SliceLine findLine(SliceContent content, String targetUnitStr) {
         if (targetUnitStr == null) {
             return null;
         }
 
-        for (Object o : content) {
-            JSONObject line = (JSONObject) o;
-            String unitStr = line.getString(UNIT_STRING);
+        for (SliceLine line : content) {
+            String unitStr = line.getUnitString();
             if (unitStr.contains(targetUnitStr)) {
                 return line;
             }
@@ -1017,35 +1316,41 @@ public class RuleChecker {
         return null;
     }
 
-    private String findSecureUnitString(JSONArray content, Object targetSignatures) {
+    private String findSecureUnitString(SliceContent content, Object targetSignatures) {
         String targetUnitStr = checkSignatures(content, targetSignatures);
         if (targetUnitStr != null) {
             return targetUnitStr;
         }
 
-        int length = content.length();
+        ArrayList<String> unitStrings = new ArrayList<>();
+        LinkedHashSet<String> signatures = new LinkedHashSet<>();
+        int length = content.size();
         for (int i = 0; i < length; i++) {
-            JSONObject line = (JSONObject) (content.get(i));
-            int unitType = line.getInt(UNIT_TYPE);
+            SliceLine line = content.get(i);
+            int unitType = line.getUnitType();
             if ((unitType & INVOKE) != INVOKE) {
                 continue;
             }
 
-            JSONObject nextLine = (i + 1 < length) ? (JSONObject) content.get(i + 1) : new JSONObject();
-            int nextUnitType = (i + 1 < length) ? nextLine.getInt(UNIT_TYPE) : -1;
+            int nextUnitType = (i + 1 < length) ? content.get(i + 1).getUnitType() : -1;
             if (nextUnitType == PARAMETER) {
                 continue;
             }
 
-            String unitStr = line.getString(UNIT_STRING);
+            String unitStr = line.getUnitString();
+            unitStrings.add(unitStr);
+            signatures.add(getSignature(unitStr));
+        }
+
+        HashMap<String, JSONObject> targetSliceMap = sliceDatabase.selectByCallerNames(signatures);
+        for (String unitStr : unitStrings) {
             String signature = getSignature(unitStr);
-            List<String> query = List.of(String.format("%s==%s", CALLER_NAME, signature));
-            JSONObject targetSlice = sliceDatabase.selectOne(query);
+            JSONObject targetSlice = targetSliceMap.get(signature);
             if (targetSlice == null) {
                 continue;
             }
 
-            JSONArray targetContent = targetSlice.getJSONArray(CONTENT);
+            SliceContent targetContent = sliceDatabase.getContent(targetSlice);
             targetUnitStr = checkSignatures(targetContent, targetSignatures);
             if (targetUnitStr == null) {
                 continue;
@@ -1154,6 +1459,24 @@ public class RuleChecker {
         return null;
     }
 
+    private static class RuleResult {
+        private final int index;
+        private final String ruleId;
+        private final String description;
+        private final String callerName;
+        private final String targetStatement;
+        private final HashMap<String, LinkedHashSet<String>> misusedLinesMap;
+
+        private RuleResult(int index, String ruleId, String description, String callerName, String targetStatement, HashMap<String, LinkedHashSet<String>> misusedLinesMap) {
+            this.index = index;
+            this.ruleId = ruleId;
+            this.description = description;
+            this.callerName = callerName;
+            this.targetStatement = targetStatement;
+            this.misusedLinesMap = misusedLinesMap;
+        }
+    }
+
     private static class Holder {
         private static final RuleChecker instance = new RuleChecker();
     }
@@ -4,8 +4,10 @@ public class RuleConstants {
     public static final String SLICING_SIGNATURES = "slicingSignatures";
     protected static final String INSECURE_RULE = "insecureRule";
     protected static final String SECURE_RULE = "secureRule";
-    protected static final String RULE_ID = "ruleID";
-    protected static final String DESCRIPTION = "description";
+    public static final String RULE_ID = "ruleID";
+    public static final String DESCRIPTION = "description";
+    public static final String TARGET_LINES = "targetLines";
+    public static final String INCOMPLETE = "incomplete";
     protected static final String CONDITIONS = "conditions";
     protected static final String TARGET_SCHEME_TYPES = "targetSchemeTypes";
     protected static final String REQUIRED_SCHEME_TYPES = "requiredSchemeTypes";
@@ -0,0 +1,310 @@
+package com.ccadroid.incremental;
+
+import com.ccadroid.inspect.ApkParser;
+import com.ccadroid.inspect.CodeInspector;
+import com.ccadroid.inspect.SlicingCriteriaGenerator;
+import com.ccadroid.inspect.SlicingCriterion;
+import com.ccadroid.util.Configuration;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static com.ccadroid.check.RuleConstants.*;
+import static com.ccadroid.slice.SliceConstants.CALLER_NAME;
+import static com.ccadroid.slice.SliceConstants.TARGET_STATEMENT;
+import static com.ccadroid.util.soot.SootUnit.getClassName;
+
+public class IncrementalAnalyzer {
+    private static final int UPPER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.upperLevel"));
+    private static final int LOWER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.lowerLevel"));
+    private static final List<String> SETTING_KEYS = List.of("slice.upperLevel", "slice.lowerLevel", "inspect.excludedPackages", "inspect.includedPackages", "callgraph.mode", "budget.enabled", "budget.buildCallGraphMs", "budget.sliceMs", "budget.checkRulesMs", "budget.heapRatio");
+    private static final String SETTINGS_DIGEST = "settingsDigest";
+    private static final String CLASS_DIGESTS = "classDigests";
+    private static final String CRITERIA = "criteria";
+    private static final String FINDINGS = "findings";
+    private final ApkParser apkParser;
+    private final CodeInspector codeInspector;
+    private final SlicingCriteriaGenerator slicingCriteriaGenerator;
+    private final HashSet<String> changedClassNames;
+    private final HashMap<String, HashSet<String>> touchedClassNamesMap;
+    private final ArrayList<JSONObject> unchangedFindings;
+    private Path snapshotPath;
+    private String settingsDigest;
+    private JSONObject snapshot;
+
+    public IncrementalAnalyzer() {
+        apkParser = ApkParser.getInstance();
+        codeInspector = CodeInspector.getInstance();
+        slicingCriteriaGenerator = SlicingCriteriaGenerator.getInstance();
+
+        changedClassNames = new HashSet<>();
+        touchedClassNamesMap = new HashMap<>();
+        unchangedFindings = new ArrayList<>();
+    }
+
+    public static IncrementalAnalyzer getInstance() {
+        return IncrementalAnalyzer.Holder.instance;
+    }
+
+    public static boolean isEnabled() {
+        String enabled = Configuration.getProperty("incremental.enabled");
+
+        return Boolean.parseBoolean(enabled);
+    }
+
+    public void loadSnapshot(String packageName, File ruleFileDir) {
+        settingsDigest = getSettingsDigest(ruleFileDir);
+
+        String snapshotDir = Configuration.getProperty("incremental.snapshotDir");
+        snapshotPath = Paths.get(snapshotDir, packageName + ".json");
+        if (!Files.exists(snapshotPath)) {
+            System.out.println("[*] No previous snapshot : " + snapshotPath);
+            return;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(snapshotPath)) {
+            JSONTokener tokenizer = new JSONTokener(inputStream);
+            snapshot = new JSONObject(tokenizer);
+        } catch (IOException | JSONException ignored) {
+            System.out.println("[*] ERROR : Cannot load snapshot: " + snapshotPath);
+        }
+
+        if (snapshot != null && (settingsDigest == null || !settingsDigest.equals(snapshot.optString(SETTINGS_DIGEST)))) { // for findings from other rules or settings
+            System.out.println("[*] Snapshot settings changed : " + snapshotPath);
+            snapshot = null;
+        }
+    }
+
+    public ArrayList<SlicingCriterion> filterSlicingCriteria(ArrayList<SlicingCriterion> slicingCriteria) {
+        setChangedClassNames();
+
+        JSONObject prevCriteria = (snapshot == null) ? null : snapshot.optJSONObject(CRITERIA);
+        HashSet<String> affectedKeys = new HashSet<>();
+
+        for (SlicingCriterion sc : slicingCriteria) {
+            String key = getCriterionKey(sc.getCallerName(), sc.getTargetStatement());
+            HashSet<String> classNames = touchedClassNamesMap.computeIfAbsent(key, k -> new HashSet<>());
+            classNames.addAll(getTouchedClassNames(sc.getCallerName()));
+        }
+
+        Set<Map.Entry<String, HashSet<String>>> entries = touchedClassNamesMap.entrySet();
+        for (Map.Entry<String, HashSet<String>> e : entries) {
+            String key = e.getKey();
+            HashSet<String> classNames = new HashSet<>(e.getValue());
+            JSONArray prevClassNames = (prevCriteria == null) ? null : prevCriteria.optJSONArray(key);
+            if (prevClassNames == null) {
+                affectedKeys.add(key);
+                continue;
+            }
+
+            for (Object o : prevClassNames) {
+                classNames.add((String) o);
+            }
+
+            classNames.retainAll(changedClassNames);
+            if (!classNames.isEmpty()) {
+                affectedKeys.add(key);
+            }
+        }
+
+        JSONArray prevFindings = (snapshot == null) ? new JSONArray() : snapshot.optJSONArray(FINDINGS);
+        if (prevFindings != null) {
+            for (Object o : prevFindings) {
+                JSONObject finding = (JSONObject) o;
+                String key = getCriterionKey(finding.getString(CALLER_NAME), finding.getString(TARGET_STATEMENT));
+                if (touchedClassNamesMap.containsKey(key) && !affectedKeys.contains(key)) {
+                    unchangedFindings.add(finding);
+                }
+            }
+        }
+
+        ArrayList<SlicingCriterion> affectedCriteria = new ArrayList<>();
+        for (SlicingCriterion sc : slicingCriteria) {
+            String key = getCriterionKey(sc.getCallerName(), sc.getTargetStatement());
+            if (affectedKeys.contains(key)) {
+                affectedCriteria.add(sc);
+            }
+        }
+
+        System.out.println("[*] Changed classes : " + changedClassNames.size());
+        System.out.println("[*] Affected slicing criteria : " + affectedCriteria.size() + " / " + slicingCriteria.size());
+
+        return affectedCriteria;
+    }
+
+    public void reportFindings(ArrayList<JSONObject> findings) {
+        ArrayList<JSONObject> currFindings = new ArrayList<>(unchangedFindings);
+        currFindings.addAll(findings);
+
+        LinkedHashMap<String, JSONObject> prevFindingMap = new LinkedHashMap<>();
+        JSONArray prevFindings = (snapshot == null) ? null : snapshot.optJSONArray(FINDINGS);
+        if (prevFindings != null) {
+            for (Object o : prevFindings) {
+                JSONObject finding = (JSONObject) o;
+                prevFindingMap.put(getFindingKey(finding), finding);
+            }
+        }
+
+        LinkedHashMap<String, JSONObject> currFindingMap = new LinkedHashMap<>();
+        for (JSONObject f : currFindings) {
+            currFindingMap.put(getFindingKey(f), f);
+        }
+
+        System.out.println();
+        System.out.println("=======================================");
+        int unchangedCount = 0;
+        Set<Map.Entry<String, JSONObject>> entries = currFindingMap.entrySet();
+        for (Map.Entry<String, JSONObject> e : entries) {
+            if (prevFindingMap.containsKey(e.getKey())) {
+                unchangedCount++;
+            } else {
+                printFinding("[+] New finding", e.getValue());
+            }
+        }
+
+        entries = prevFindingMap.entrySet();
+        for (Map.Entry<String, JSONObject> e : entries) {
+            if (!currFindingMap.containsKey(e.getKey())) {
+                printFinding("[-] Resolved finding", e.getValue());
+            }
+        }
+
+        System.out.println("[*] Unchanged findings : " + unchangedCount);
+        System.out.println("=======================================");
+
+        saveSnapshot(new ArrayList<>(currFindingMap.values()));
+    }
+
+    private void setChangedClassNames() {
+        HashMap<String, String> digests = apkParser.getDexClassDigests();
+        JSONObject prevDigests = (snapshot == null) ? new JSONObject() : snapshot.optJSONObject(CLASS_DIGESTS);
+        if (prevDigests == null) {
+            prevDigests = new JSONObject();
+        }
+
+        Set<Map.Entry<String, String>> entries = digests.entrySet();
+        for (Map.Entry<String, String> e : entries) {
+            String className = e.getKey();
+            String digest = e.getValue();
+            if (!digest.equals(prevDigests.optString(className))) {
+                changedClassNames.add(className);
+            }
+        }
+
+        Set<String> prevClassNames = prevDigests.keySet();
+        for (String s : prevClassNames) {
+            if (!digests.containsKey(s)) {
+                changedClassNames.add(s);
+            }
+        }
+    }
+
+    private HashSet<String> getTouchedClassNames(String callerName) {
+        HashSet<String> classNames = new HashSet<>();
+        classNames.add(getClassName(callerName));
+
+        if (slicingCriteriaGenerator.isReachable(callerName)) {
+            HashSet<String> callerNames = codeInspector.traverseAllCallers(callerName);
+            for (String c : callerNames) {
+                classNames.add(getClassName(c));
+            }
+        }
+
+        int depth = Math.max(UPPER_LEVEL, -LOWER_LEVEL);
+        HashSet<String> signatures = codeInspector.traverseCallees(callerName, depth);
+        for (String s : signatures) {
+            classNames.add(getClassName(s));
+        }
+
+        return classNames;
+    }
+
+    private void saveSnapshot(ArrayList<JSONObject> findings) {
+        if (snapshotPath == null) {
+            return;
+        }
+
+        JSONObject criteria = new JSONObject();
+        Set<Map.Entry<String, HashSet<String>>> entries = touchedClassNamesMap.entrySet();
+        for (Map.Entry<String, HashSet<String>> e : entries) {
+            criteria.put(e.getKey(), e.getValue());
+        }
+
+        JSONObject newSnapshot = new JSONObject();
+        newSnapshot.put(SETTINGS_DIGEST, settingsDigest);
+        newSnapshot.put(CLASS_DIGESTS, apkParser.getDexClassDigests());
+        newSnapshot.put(CRITERIA, criteria);
+        newSnapshot.put(FINDINGS, findings);
+
+        try {
+            Path parent = snapshotPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            Files.write(snapshotPath, newSnapshot.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot save snapshot: " + snapshotPath);
+        }
+    }
+
+    private String getSettingsDigest(File ruleFileDir) { // for the rules and the settings shaping the findings
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            File[] ruleFiles = ruleFileDir.listFiles();
+            if (ruleFiles != null) {
+                Arrays.sort(ruleFiles);
+                for (File f : ruleFiles) {
+                    messageDigest.update((f.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+                    messageDigest.update(Files.readAllBytes(f.toPath()));
+                }
+            }
+
+            for (String k : SETTING_KEYS) {
+                messageDigest.update((k + "=" + Configuration.getProperty(k) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+
+            byte[] bytes = messageDigest.digest();
+            HexFormat hexFormat = HexFormat.of();
+
+            return hexFormat.formatHex(bytes);
+        } catch (IOException | NoSuchAlgorithmException ignored) {
+            System.out.println("[*] ERROR : Cannot get settings digest!");
+            return null;
+        }
+    }
+
+    private void printFinding(String title, JSONObject finding) {
+        System.out.println(title + ": " + finding.getString(RULE_ID) + " (" + finding.getString(DESCRIPTION) + ")");
+        System.out.println("    Caller name: " + finding.getString(CALLER_NAME));
+        System.out.println("    Target statement: " + finding.getString(TARGET_STATEMENT));
+    }
+
+    private String getCriterionKey(String callerName, String targetStatement) {
+        return callerName + "|" + targetStatement;
+    }
+
+    private String getFindingKey(JSONObject finding) {
+        String criterionKey = getCriterionKey(finding.getString(CALLER_NAME), finding.getString(TARGET_STATEMENT));
+        JSONObject targetLines = finding.getJSONObject(TARGET_LINES);
+        TreeMap<String, Object> sortedLines = new TreeMap<>(targetLines.toMap());
+
+        return finding.getString(RULE_ID) + "|" + criterionKey + "|" + sortedLines;
+    }
+
+    private static class Holder {
+        private static final IncrementalAnalyzer instance = new IncrementalAnalyzer();
+    }
+}
\ No newline at end of file
@@ -2,6 +2,14 @@ package com.ccadroid.inspect;
 
 import net.dongliu.apk.parser.ApkFile;
 import net.dongliu.apk.parser.bean.DexClass;
+import org.jf.dexlib2.DexFileFactory;
+import org.jf.dexlib2.Opcodes;
+import org.jf.dexlib2.dexbacked.DexBackedClassDef;
+import org.jf.dexlib2.dexbacked.DexBackedDexFile;
+import org.jf.dexlib2.iface.*;
+import org.jf.dexlib2.iface.instruction.*;
+import org.jf.dexlib2.iface.instruction.formats.ArrayPayload;
+import org.jf.dexlib2.iface.value.EncodedValue;
 import org.w3c.dom.*;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -9,13 +17,26 @@ import org.xml.sax.SAXException;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import static com.ccadroid.util.dex.Dex.getTypeName;
 
 public class ApkParser {
     private static final ArrayList<String> appComponents = new ArrayList<>();
     private static final ArrayList<String> dexClassNames = new ArrayList<>();
+    private static final ArrayList<ClassDef> dexClassDefs = new ArrayList<>();
+    private static final HashMap<String, String> dexClassDigests = new HashMap<>();
+    private String apkPath;
     private ApkFile apkFile;
     private String packageName;
     private String appClassName;
@@ -25,6 +46,8 @@ public class ApkParser {
     }
 
     public void loadAPKFile(String apkPath) {
+        this.apkPath = apkPath;
+
         try {
             apkFile = new ApkFile(apkPath);
         } catch (IOException ignored) {
@@ -108,12 +131,7 @@ public class ApkParser {
             DexClass[] classes = apkFile.getDexClasses();
             for (DexClass c : classes) {
                 String classType = c.getClassType();
-                String className = classType.trim();
-                className = className.replace('/', '.');
-
-                int beginIndex = 1;
-                int endIndex = className.length() - 1;
-                className = className.substring(beginIndex, endIndex);
+                String className = getTypeName(classType.trim());
 
                 dexClassNames.add(className);
             }
@@ -122,6 +140,21 @@ public class ApkParser {
         }
     }
 
+    public void setDexClassDigests() {
+        try {
+            ArrayList<ClassDef> classDefs = getDexClassDefs();
+            for (ClassDef c : classDefs) {
+                String classType = c.getType();
+                String className = getTypeName(classType);
+                String digest = getDigest(c);
+
+                dexClassDigests.put(className, digest);
+            }
+        } catch (NoSuchAlgorithmException ignored) {
+            System.out.println("[*] ERROR : Cannot get class digests!");
+        }
+    }
+
     public String getPackageName() {
         return packageName;
     }
@@ -138,6 +171,153 @@ public class ApkParser {
         return dexClassNames;
     }
 
+    public HashMap<String, String> getDexClassDigests() {
+        return dexClassDigests;
+    }
+
+    public ArrayList<ClassDef> getDexClassDefs() {
+        if (!dexClassDefs.isEmpty()) {
+            return dexClassDefs;
+        }
+
+        try {
+            File file = new File(apkPath);
+            MultiDexContainer<? extends DexBackedDexFile> container = DexFileFactory.loadDexContainer(file, Opcodes.getDefault());
+            List<String> entryNames = container.getDexEntryNames();
+            for (String n : entryNames) {
+                MultiDexContainer.DexEntry<? extends DexBackedDexFile> entry = container.getEntry(n);
+                if (entry == null) {
+                    continue;
+                }
+
+                DexBackedDexFile dexFile = entry.getDexFile();
+                Set<? extends DexBackedClassDef> classes = dexFile.getClasses();
+                dexClassDefs.addAll(classes);
+            }
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot load dex files!");
+        }
+
+        return dexClassDefs;
+    }
+
+    private String getDigest(ClassDef classDef) throws NoSuchAlgorithmException {
+        MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+        updateDigest(messageDigest, classDef.getType());
+        updateDigest(messageDigest, classDef.getSuperclass());
+        updateDigest(messageDigest, String.valueOf(classDef.getAccessFlags()));
+        updateDigest(messageDigest, classDef.getInterfaces().toString());
+
+        for (Field f : classDef.getFields()) {
+            updateDigest(messageDigest, f.toString());
+            updateDigest(messageDigest, String.valueOf(f.getAccessFlags()));
+
+            EncodedValue initialValue = f.getInitialValue();
+            if (initialValue != null) {
+                updateDigest(messageDigest, initialValue.toString());
+            }
+        }
+
+        for (Method m : classDef.getMethods()) {
+            updateDigest(messageDigest, m.toString());
+            updateDigest(messageDigest, String.valueOf(m.getAccessFlags()));
+
+            MethodImplementation implementation = m.getImplementation();
+            if (implementation == null) {
+                continue;
+            }
+
+            updateDigest(messageDigest, String.valueOf(implementation.getRegisterCount()));
+            for (Instruction i : implementation.getInstructions()) {
+                updateDigest(messageDigest, i);
+            }
+
+            List<? extends TryBlock<? extends ExceptionHandler>> tryBlocks = implementation.getTryBlocks();
+            for (TryBlock<? extends ExceptionHandler> b : tryBlocks) {
+                updateDigest(messageDigest, "try " + b.getStartCodeAddress() + " " + b.getCodeUnitCount());
+
+                List<? extends ExceptionHandler> handlers = b.getExceptionHandlers();
+                for (ExceptionHandler h : handlers) {
+                    updateDigest(messageDigest, "catch " + h.getExceptionType() + " " + h.getHandlerCodeAddress());
+                }
+            }
+        }
+
+        byte[] bytes = messageDigest.digest();
+        HexFormat hexFormat = HexFormat.of().withUpperCase();
+
+        return hexFormat.formatHex(bytes);
+    }
+
+    private void updateDigest(MessageDigest messageDigest, Instruction instruction) {
+        StringBuilder builder = new StringBuilder(instruction.getOpcode().name);
+
+        if (instruction instanceof OneRegisterInstruction) {
+            builder.append(" v").append(((OneRegisterInstruction) instruction).getRegisterA());
+        }
+
+        if (instruction instanceof TwoRegisterInstruction) {
+            builder.append(" v").append(((TwoRegisterInstruction) instruction).getRegisterB());
+        }
+
+        if (instruction instanceof ThreeRegisterInstruction) {
+            builder.append(" v").append(((ThreeRegisterInstruction) instruction).getRegisterC());
+        }
+
+        if (instruction instanceof FiveRegisterInstruction) {
+            FiveRegisterInstruction fiveRegisterInstruction = (FiveRegisterInstruction) instruction;
+            int[] registers = {fiveRegisterInstruction.getRegisterC(), fiveRegisterInstruction.getRegisterD(), fiveRegisterInstruction.getRegisterE(), fiveRegisterInstruction.getRegisterF(), fiveRegisterInstruction.getRegisterG()};
+            int registerCount = fiveRegisterInstruction.getRegisterCount();
+            for (int i = 0; i < registerCount; i++) {
+                builder.append(" v").append(registers[i]);
+            }
+        }
+
+        if (instruction instanceof RegisterRangeInstruction) {
+            RegisterRangeInstruction registerRangeInstruction = (RegisterRangeInstruction) instruction;
+            builder.append(" v").append(registerRangeInstruction.getStartRegister()).append(" ").append(registerRangeInstruction.getRegisterCount());
+        }
+
+        if (instruction instanceof ReferenceInstruction) {
+            builder.append(" ").append(((ReferenceInstruction) instruction).getReference());
+        }
+
+        if (instruction instanceof DualReferenceInstruction) {
+            builder.append(" ").append(((DualReferenceInstruction) instruction).getReference2());
+        }
+
+        if (instruction instanceof WideLiteralInstruction) {
+            builder.append(" #").append(((WideLiteralInstruction) instruction).getWideLiteral());
+        }
+
+        if (instruction instanceof OffsetInstruction) {
+            builder.append(" +").append(((OffsetInstruction) instruction).getCodeOffset());
+        }
+
+        if (instruction instanceof ArrayPayload) { // for hardcoded arrays such as key bytes
+            ArrayPayload arrayPayload = (ArrayPayload) instruction;
+            builder.append(" ").append(arrayPayload.getElementWidth()).append(" ").append(arrayPayload.getArrayElements());
+        }
+
+        if (instruction instanceof SwitchPayload) {
+            List<? extends SwitchElement> elements = ((SwitchPayload) instruction).getSwitchElements();
+            for (SwitchElement e : elements) {
+                builder.append(" ").append(e.getKey()).append(":").append(e.getOffset());
+            }
+        }
+
+        updateDigest(messageDigest, builder.toString());
+    }
+
+    private void updateDigest(MessageDigest messageDigest, String str) {
+        if (str == null) {
+            return;
+        }
+
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        messageDigest.update(bytes);
+    }
+
     private static class Holder {
         private static final ApkParser instance = new ApkParser();
     }
@@ -0,0 +1,99 @@
+package com.ccadroid.inspect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+public class ClassClassifier {
+    private final ApkParser apkParser;
+    private final HashMap<String, ClassType> classTypeMap;
+    private HashSet<String> dexClassNames;
+    private HashSet<String> appComponents;
+    private HashSet<String> packageTokens;
+
+    public ClassClassifier() {
+        apkParser = ApkParser.getInstance();
+        classTypeMap = new HashMap<>();
+    }
+
+    public static ClassClassifier getInstance() {
+        return ClassClassifier.Holder.instance;
+    }
+
+    public ClassType getClassType(String className) {
+        ClassType classType = classTypeMap.get(className);
+        if (classType == null) {
+            classType = classify(className);
+            classTypeMap.put(className, classType);
+        }
+
+        return classType;
+    }
+
+    public boolean isAppRelated(String className) {
+        ClassType classType = getClassType(className);
+
+        return classType == ClassType.APP || classType == ClassType.PACKAGE_RELATED;
+    }
+
+    public boolean isFramework(String className) {
+        return getClassType(className) == ClassType.FRAMEWORK;
+    }
+
+    private ClassType classify(String className) {
+        if (dexClassNames == null) { // for the manifest data parsed after construction
+            loadManifestData();
+        }
+
+        if (!dexClassNames.contains(className)) {
+            return ClassType.FRAMEWORK;
+        }
+
+        if (isAppComponent(className)) {
+            return ClassType.APP;
+        }
+
+        if (isPackageNameRelated(className)) {
+            return ClassType.PACKAGE_RELATED;
+        }
+
+        return ClassType.THIRD_PARTY;
+    }
+
+    private void loadManifestData() {
+        dexClassNames = new HashSet<>(apkParser.getDexClassNames());
+        appComponents = new HashSet<>(apkParser.getAppComponents());
+
+        String packageName = apkParser.getPackageName();
+        packageTokens = (packageName == null) ? new HashSet<>() : new HashSet<>(Arrays.asList(packageName.split("\\.")));
+    }
+
+    private boolean isAppComponent(String targetClassName) {
+        String packageName = apkParser.getPackageName();
+        String appClassName = apkParser.getAppClassName();
+        String className = targetClassName.split("\\$")[0];
+
+        return ((packageName != null && className.contains(packageName)) || className.equals(appClassName) || appComponents.contains(className));
+    }
+
+    private boolean isPackageNameRelated(String targetClassName) {
+        HashSet<String> classTokens = new HashSet<>(Arrays.asList(targetClassName.split("\\.")));
+
+        int count = 0;
+        for (String s : classTokens) {
+            if (packageTokens.contains(s)) {
+                count++;
+            }
+        }
+
+        return count > 1;
+    }
+
+    public enum ClassType {
+        APP, PACKAGE_RELATED, THIRD_PARTY, FRAMEWORK
+    }
+
+    private static class Holder {
+        private static final ClassClassifier instance = new ClassClassifier();
+    }
+}
\ No newline at end of file
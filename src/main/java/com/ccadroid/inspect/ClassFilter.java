@@ -0,0 +1,169 @@
+package com.ccadroid.inspect;
+
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.dex.Dex;
+import org.jf.dexlib2.iface.ClassDef;
+import org.jf.dexlib2.iface.Method;
+import org.jf.dexlib2.iface.MethodImplementation;
+import org.jf.dexlib2.iface.instruction.Instruction;
+import org.jf.dexlib2.iface.instruction.ReferenceInstruction;
+import org.jf.dexlib2.iface.reference.FieldReference;
+import org.jf.dexlib2.iface.reference.MethodReference;
+import org.jf.dexlib2.iface.reference.Reference;
+
+import java.util.*;
+
+import static com.ccadroid.util.dex.Dex.getTypeName;
+import static com.ccadroid.util.soot.SootUnit.getClassName;
+
+public class ClassFilter {
+    private static final int UPPER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.upperLevel"));
+    private static final int LOWER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.lowerLevel"));
+    private final ApkParser apkParser;
+    private final HashMap<String, HashSet<String>> calleeClassNamesMap;
+    private final HashMap<String, HashSet<String>> callerClassNamesMap;
+    private final HashMap<String, HashSet<String>> fieldClassNamesMap;
+    private HashSet<String> targetClassNames;
+
+    public ClassFilter() {
+        apkParser = ApkParser.getInstance();
+
+        calleeClassNamesMap = new HashMap<>();
+        callerClassNamesMap = new HashMap<>();
+        fieldClassNamesMap = new HashMap<>();
+    }
+
+    public static ClassFilter getInstance() {
+        return ClassFilter.Holder.instance;
+    }
+
+    public static boolean isEnabled() {
+        String enabled = Configuration.getProperty("inspect.prefilter");
+
+        return Boolean.parseBoolean(enabled);
+    }
+
+    public void setTargetClassNames(ArrayList<String> targetSignatures) {
+        HashSet<String> signatureSet = new HashSet<>(targetSignatures);
+        HashSet<String> seedClassNames = new HashSet<>();
+
+        ArrayList<ClassDef> classDefs = apkParser.getDexClassDefs();
+        for (ClassDef c : classDefs) {
+            String className = getTypeName(c.getType());
+            HashSet<String> calleeClassNames = calleeClassNamesMap.computeIfAbsent(className, k -> new HashSet<>());
+
+            for (Method m : c.getMethods()) {
+                MethodImplementation implementation = m.getImplementation();
+                if (implementation == null) {
+                    continue;
+                }
+
+                for (Instruction i : implementation.getInstructions()) {
+                    if (!(i instanceof ReferenceInstruction)) {
+                        continue;
+                    }
+
+                    Reference reference = ((ReferenceInstruction) i).getReference();
+                    if (reference instanceof MethodReference) {
+                        String signature = Dex.getSignature((MethodReference) reference);
+                        if (signatureSet.contains(signature)) {
+                            seedClassNames.add(className);
+                        }
+
+                        calleeClassNames.add(getClassName(signature));
+                    } else if (reference instanceof FieldReference) {
+                        String signature = Dex.getSignature((FieldReference) reference);
+                        HashSet<String> fieldClassNames = fieldClassNamesMap.computeIfAbsent(signature, k -> new HashSet<>());
+                        fieldClassNames.add(className);
+                    }
+                }
+            }
+
+            calleeClassNames.remove(className);
+            for (String s : calleeClassNames) {
+                HashSet<String> callerClassNames = callerClassNamesMap.computeIfAbsent(s, k -> new HashSet<>());
+                callerClassNames.add(className);
+            }
+        }
+
+        HashMap<String, Integer> upperLevelMap = traverse(seedClassNames, callerClassNamesMap, UPPER_LEVEL);
+        HashMap<String, Integer> lowerLevelMap = new HashMap<>();
+        Set<Map.Entry<String, Integer>> entries = upperLevelMap.entrySet();
+        for (Map.Entry<String, Integer> e : entries) {
+            int budget = (UPPER_LEVEL - e.getValue()) - LOWER_LEVEL; // from its level down to the lower level
+            lowerLevelMap.merge(e.getKey(), budget, Math::max);
+        }
+
+        HashMap<String, Integer> levelMap = traverse(lowerLevelMap, calleeClassNamesMap);
+        targetClassNames = new HashSet<>(levelMap.keySet());
+        targetClassNames.addAll(upperLevelMap.keySet());
+
+        Collection<HashSet<String>> fieldClassNames = fieldClassNamesMap.values();
+        for (HashSet<String> s : fieldClassNames) { // for static field writers
+            if (Collections.disjoint(s, targetClassNames)) {
+                continue;
+            }
+
+            targetClassNames.addAll(s);
+        }
+
+        System.out.println("[*] Target classes : " + targetClassNames.size() + " / " + classDefs.size());
+    }
+
+    public HashSet<String> getTargetClassNames() {
+        return (targetClassNames == null) ? new HashSet<>() : targetClassNames;
+    }
+
+    public boolean isTargetClass(String className) {
+        if (targetClassNames == null) {
+            return true;
+        }
+
+        String outerClassName = className.split("\\$")[0];
+
+        return targetClassNames.contains(className) || targetClassNames.contains(outerClassName);
+    }
+
+    private HashMap<String, Integer> traverse(HashSet<String> classNames, HashMap<String, HashSet<String>> edgeMap, int maxDepth) {
+        HashMap<String, Integer> budgetMap = new HashMap<>();
+        for (String s : classNames) {
+            budgetMap.put(s, maxDepth);
+        }
+
+        return traverse(budgetMap, edgeMap);
+    }
+
+    private HashMap<String, Integer> traverse(HashMap<String, Integer> budgetMap, HashMap<String, HashSet<String>> edgeMap) {
+        HashMap<String, Integer> visitedMap = new HashMap<>(budgetMap);
+        ArrayDeque<String> deque = new ArrayDeque<>(budgetMap.keySet());
+
+        while (!deque.isEmpty()) {
+            String className = deque.poll();
+            int budget = visitedMap.get(className);
+            if (budget <= 0) {
+                continue;
+            }
+
+            HashSet<String> nextClassNames = edgeMap.get(className);
+            if (nextClassNames == null) {
+                continue;
+            }
+
+            for (String s : nextClassNames) {
+                Integer oldBudget = visitedMap.get(s);
+                if (oldBudget != null && oldBudget >= budget - 1) {
+                    continue;
+                }
+
+                visitedMap.put(s, budget - 1);
+                deque.add(s);
+            }
+        }
+
+        return visitedMap;
+    }
+
+    private static class Holder {
+        private static final ClassFilter instance = new ClassFilter();
+    }
+}
\ No newline at end of file
@@ -1,9 +1,25 @@
 package com.ccadroid.inspect;
 
+import com.ccadroid.util.Budget;
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.Metrics;
+import com.ccadroid.util.SymbolTable;
+import com.ccadroid.util.dex.Dex;
 import com.ccadroid.util.graph.CallGraph;
 import com.ccadroid.util.soot.Soot;
+import com.ccadroid.util.soot.SootCallGraph;
 import com.ccadroid.util.soot.SootUnit;
+import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
+import org.jf.dexlib2.Opcode;
+import org.jf.dexlib2.iface.ClassDef;
+import org.jf.dexlib2.iface.Method;
+import org.jf.dexlib2.iface.MethodImplementation;
+import org.jf.dexlib2.iface.instruction.Instruction;
+import org.jf.dexlib2.iface.instruction.ReferenceInstruction;
+import org.jf.dexlib2.iface.reference.FieldReference;
+import org.jf.dexlib2.iface.reference.MethodReference;
+import org.jf.dexlib2.iface.reference.Reference;
 import soot.*;
 import soot.jimple.*;
 import soot.jimple.internal.JAssignStmt;
@@ -11,36 +27,111 @@ import soot.tagkit.ConstantValueTag;
 import soot.tagkit.Tag;
 import soot.util.Chain;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.ccadroid.util.dex.Dex.getTypeName;
 import static com.ccadroid.util.graph.BaseGraph.EdgeType.*;
 import static com.ccadroid.util.soot.SootUnit.*;
 
 public class CodeInspector {
+    private static final boolean LAZY_BODY = Boolean.parseBoolean(Configuration.getProperty("inspect.lazyBody"));
+    private static final int BODY_CACHE_SIZE = Integer.parseInt(Configuration.getProperty("inspect.bodyCacheSize"));
+    private static final String CALL_GRAPH_MODE = Configuration.getProperty("callgraph.mode");
+    private final SymbolTable symbolTable;
     private final CallGraph callGraph;
+    private final HashSet<String> initializedClassNames;
+    private final HashSet<String> failedSignatures;
     private final HashMap<String, Value> constantValueMap;
     private final HashMap<String, HashMap<Integer, ArrayList<Unit>>> targetUnitsMap;
-    private final HashMap<String, ArrayList<Unit>> wholeUnitMap;
+    private final HashMap<String, ArrayList<Unit>> pinnedUnitMap;
+    private final HashMap<String, MethodSource> methodSourceMap;
+    private final HashMap<String, HashMap<Unit, Unit>> replacedUnitsMap;
+    private final HashMap<String, Long> bodyGenerationMap;
+    private final ArrayList<Consumer<String>> releaseListeners;
+    private final LinkedHashMap<String, ArrayList<Unit>> wholeUnitMap;
+    private long bodyGeneration;
 
     private CodeInspector() {
+        symbolTable = SymbolTable.getInstance();
         callGraph = new CallGraph();
 
+        initializedClassNames = new HashSet<>();
+        failedSignatures = new HashSet<>();
         constantValueMap = new HashMap<>();
         targetUnitsMap = new HashMap<>();
-        wholeUnitMap = new HashMap<>();
+        pinnedUnitMap = new HashMap<>();
+        methodSourceMap = new HashMap<>();
+        replacedUnitsMap = new HashMap<>();
+        bodyGenerationMap = new HashMap<>();
+        releaseListeners = new ArrayList<>();
+        wholeUnitMap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ArrayList<Unit>> eldest) {
+                if (!LAZY_BODY || size() <= BODY_CACHE_SIZE) {
+                    return false;
+                }
+
+                releaseBody(eldest.getKey());
+                return true;
+            }
+        };
     }
 
     public static CodeInspector getInstance() {
         return CodeInspector.Holder.instance;
     }
 
+    public static boolean isLazyBody() {
+        return LAZY_BODY;
+    }
+
     public void buildCallGraph() {
         ApkParser apkParser = ApkParser.getInstance();
         ArrayList<String> dexClassNames = apkParser.getDexClassNames();
+
+        ClassFilter classFilter = ClassFilter.getInstance();
+        if (LAZY_BODY || ClassFilter.isEnabled()) { // for classes without Jimple bodies
+            ArrayList<ClassDef> classDefs = apkParser.getDexClassDefs();
+            for (ClassDef c : classDefs) {
+                String className = getTypeName(c.getType());
+                if (isExcludedClass(className)) {
+                    continue;
+                }
+
+                if (LAZY_BODY || !classFilter.isTargetClass(className)) {
+                    buildCallGraph(c);
+                }
+            }
+        }
+
+        if (LAZY_BODY) { // for demand-driven body loading
+            addResolvedEdges();
+            return;
+        }
+
+        Budget budget = Budget.getInstance();
+        boolean isExhausted = false;
         for (String name : dexClassNames) {
-            if (name.startsWith("dalvik") || name.startsWith("android") || name.startsWith("kotlin") || name.startsWith("io.flutter") || name.startsWith("scala")) {
+            if (isExcludedClass(name) || !classFilter.isTargetClass(name)) {
+                continue;
+            }
+
+            if (!isExhausted && budget.isExceeded() && !budget.degrade()) {
+                isExhausted = true;
+            }
+
+            if (isExhausted) { // for remaining classes without Jimple bodies
+                budget.addUnanalyzedClassName(name);
                 continue;
             }
 
@@ -57,112 +148,192 @@ public class CodeInspector {
                     parseStaticFinalValue(sootClass);
                 }
 
-                try {
-                    String callerName = m.toString();
-                    Node caller = callGraph.addNode(callerName, callerName);
-
-                    HashMap<Integer, ArrayList<Unit>> map = new HashMap<>();
-
-                    Body body = m.retrieveActiveBody();
-                    UnitPatchingChain chain = body.getUnits();
-                    ArrayList<Unit> units = new ArrayList<>(chain);
-                    for (Unit u : units) {
-                        int unitType = getUnitType(u);
-                        switch (unitType) {
-                            case VIRTUAL_INVOKE:
-                            case STATIC_INVOKE:
-                            case INTERFACE_INVOKE:
-                            case SPECIAL_INVOKE:
-                            case ASSIGN_VIRTUAL_INVOKE:
-                            case ASSIGN_STATIC_INVOKE:
-                            case ASSIGN_INTERFACE_INVOKE:
-                            case ASSIGN_SPECIAL_INVOKE: {
-                                String calleeName = getSignature(u);
-                                Node callee = callGraph.addNode(calleeName, calleeName);
-                                callGraph.addEdge(caller, callee, DOWNWARD);
-                                break;
-                            }
+                String callerName = m.toString();
+                ArrayList<Unit> wholeUnit = parseBody(m, callerName);
+                if (wholeUnit != null) {
+                    wholeUnitMap.put(symbolTable.intern(callerName), wholeUnit);
+                }
+            }
+        }
 
-                            case ASSIGN_SIGNATURE_CONSTANT: {
-                                String signature = getSignature(u);
-                                Value value = constantValueMap.get(signature);
-                                if (value == null) {
-                                    value = getRightValue(u, unitType);
-                                    constantValueMap.put(signature, value);
-                                }
+        LinkedHashSet<String> unanalyzedClassNames = budget.getUnanalyzedClassNames();
+        if (!unanalyzedClassNames.isEmpty()) { // for call edges of classes without Jimple bodies
+            ArrayList<ClassDef> classDefs = apkParser.getDexClassDefs();
+            for (ClassDef c : classDefs) {
+                String className = getTypeName(c.getType());
+                if (unanalyzedClassNames.contains(className)) {
+                    buildCallGraph(c);
+                }
+            }
+        }
 
-                                break;
-                            }
+        addResolvedEdges();
+    }
 
-                            case ASSIGN_VARIABLE_SIGNATURE:
-                            case ASSIGN_SIGNATURE_VARIABLE: {
-                                String signature = getSignature(u);
-                                String className = getClassName(signature);
-                                if (!dexClassNames.contains(className)) {
-                                    break;
-                                }
-
-                                Node callee = callGraph.addNode(signature, signature);
-                                if (unitType == ASSIGN_VARIABLE_SIGNATURE) {
-                                    Value rightValue = constantValueMap.get(signature);
-                                    if (rightValue == null) {
-                                        callGraph.addEdge(caller, callee, READ);
-                                    } else {
-                                        Value leftValue = getLeftValue(u, unitType);
-
-                                        int index = units.indexOf(u);
-                                        Unit newUnit = new JAssignStmt(leftValue, rightValue);
-                                        units.set(index, newUnit);
-                                    }
-                                } else {
-                                    callGraph.addEdge(caller, callee, WRITE);
-                                }
-
-                                break;
-                            }
+    public void pinBody(String signature) {
+        if (!LAZY_BODY) {
+            return;
+        }
 
-                            case SWITCH: {
-                                int index = units.size() - units.indexOf(u) - 1;
-                                ArrayList<Unit> tempTargetUnits = SootUnit.getTargetUnits(u, unitType);
-                                ArrayList<Unit> targetUnits = new ArrayList<>(tempTargetUnits);
+        ArrayList<Unit> wholeUnit = wholeUnitMap.remove(signature);
+        if (wholeUnit != null) {
+            pinnedUnitMap.put(signature, wholeUnit);
+        }
+    }
 
-                                map.put(index, targetUnits);
-                                break;
-                            }
+    public void unpinBodies() {
+        if (!LAZY_BODY) {
+            return;
+        }
 
-                            default: {
-                                break;
-                            }
-                        }
+        Set<Map.Entry<String, ArrayList<Unit>>> entries = pinnedUnitMap.entrySet();
+        for (Map.Entry<String, ArrayList<Unit>> e : entries) {
+            wholeUnitMap.put(e.getKey(), e.getValue());
+        }
 
-                        if (!map.isEmpty()) {
-                            targetUnitsMap.put(callerName, map);
-                        }
-                    }
+        pinnedUnitMap.clear();
+    }
+
+    public Node getNode(String signature) {
+        return callGraph.getNode(signature);
+    }
 
-                    ArrayList<Unit> wholeUnit = new ArrayList<>(units);
-                    wholeUnitMap.put(callerName, wholeUnit);
-                } catch (RuntimeException | StackOverflowError | OutOfMemoryError ignored) { // for Soot internal error
+    public List<Node> getNodes() {
+        return callGraph.getNodes();
+    }
 
+    public ArrayList<ArrayList<String>> traverseCallers(String signature, boolean upper) {
+        return callGraph.getListOfIds(signature, upper);
+    }
+
+    public HashSet<String> traverseAllCallers(String signature) {
+        HashSet<String> signatures = new HashSet<>();
+        Node node = callGraph.getNode(signature);
+        if (node == null) {
+            return signatures;
+        }
+
+        signatures.add(signature);
+        ArrayDeque<Node> nodes = new ArrayDeque<>();
+        nodes.add(node);
+
+        while (!nodes.isEmpty()) {
+            Node n = nodes.poll();
+            Stream<Edge> stream = n.enteringEdges();
+            List<Edge> edges = stream.collect(Collectors.toList());
+            for (Edge e : edges) {
+                Node source = e.getSourceNode();
+                if (source == n) {
+                    continue;
+                }
+
+                String id = source.getId();
+                if (signatures.add(id)) {
+                    nodes.add(source);
                 }
             }
         }
+
+        return signatures;
     }
 
-    public Node getNode(String signature) {
-        return callGraph.getNode(signature);
+    public BitSet traverseReachables(List<Node> entryNodes) {
+        BitSet reachables = new BitSet(callGraph.getNodes().size());
+        ArrayDeque<Node> nodes = new ArrayDeque<>();
+        for (Node n : entryNodes) {
+            int index = n.getIndex();
+            if (!reachables.get(index)) {
+                reachables.set(index);
+                nodes.add(n);
+            }
+        }
+
+        while (!nodes.isEmpty()) {
+            Node n = nodes.poll();
+            Stream<Edge> stream = n.leavingEdges();
+            List<Edge> edges = stream.collect(Collectors.toList());
+            for (Edge e : edges) {
+                if (e.getSourceNode() != n) { // for undirected edges entering this node
+                    continue;
+                }
+
+                Node target = e.getTargetNode();
+                int index = target.getIndex();
+                if (!reachables.get(index)) {
+                    reachables.set(index);
+                    nodes.add(target);
+                }
+            }
+        }
+
+        return reachables;
     }
 
-    public ArrayList<ArrayList<String>> traverseCallers(String signature, boolean upper) {
-        return callGraph.getListOfIds(signature, upper);
+    public HashSet<String> traverseCallees(String signature, int depth) {
+        HashSet<String> signatures = new HashSet<>();
+        Node node = callGraph.getNode(signature);
+        if (node == null) {
+            return signatures;
+        }
+
+        signatures.add(signature);
+        ArrayList<Node> nodes = new ArrayList<>();
+        nodes.add(node);
+
+        for (int i = 0; i < depth && !nodes.isEmpty(); i++) {
+            ArrayList<Node> nextNodes = new ArrayList<>();
+            for (Node n : nodes) {
+                Stream<Edge> stream = n.leavingEdges();
+                List<Edge> edges = stream.collect(Collectors.toList());
+                for (Edge e : edges) {
+                    Node opposite = e.getOpposite(n);
+                    String id = opposite.getId();
+                    if (signatures.add(id)) {
+                        nextNodes.add(opposite);
+                    }
+                }
+            }
+
+            nodes = nextNodes;
+        }
+
+        return signatures;
     }
 
     public HashMap<Integer, ArrayList<Unit>> getTargetUnitsMap(String callerName) {
+        getWholeUnit(callerName);
+
         return targetUnitsMap.get(callerName);
     }
 
     public ArrayList<Unit> getWholeUnit(String signature) {
-        return wholeUnitMap.get(signature);
+        ArrayList<Unit> wholeUnit = pinnedUnitMap.get(signature);
+        if (wholeUnit != null) {
+            return wholeUnit;
+        }
+
+        wholeUnit = wholeUnitMap.get(signature);
+        if (wholeUnit == null && LAZY_BODY) {
+            wholeUnit = loadBody(signature);
+        }
+
+        return wholeUnit;
+    }
+
+    public HashMap<Unit, Unit> getReplacedUnitMap(String signature) { // for branch targets still pointing at folded units
+        HashMap<Unit, Unit> replacedUnitMap = replacedUnitsMap.get(signature);
+
+        return (replacedUnitMap == null) ? new HashMap<>() : replacedUnitMap;
+    }
+
+    public long getBodyGeneration(String signature) {
+        Long generation = bodyGenerationMap.get(signature);
+
+        return (generation == null) ? 0 : generation;
+    }
+
+    public void addReleaseListener(Consumer<String> listener) {
+        releaseListeners.add(listener);
     }
 
     public boolean isLoopStatement(Unit unit, int unitType, ArrayList<Unit> reversedUnits) {
@@ -192,6 +363,411 @@ public class CodeInspector {
         }
     }
 
+    private void buildCallGraph(ClassDef classDef) {
+        for (Method m : classDef.getMethods()) {
+            MethodImplementation implementation = m.getImplementation();
+            if (implementation == null) {
+                continue;
+            }
+
+            String callerName = Dex.getSignature(m);
+            Node caller = callGraph.addNode(callerName, callerName);
+
+            for (Instruction i : implementation.getInstructions()) {
+                if (!(i instanceof ReferenceInstruction)) {
+                    continue;
+                }
+
+                Opcode opcode = i.getOpcode();
+                Reference reference = ((ReferenceInstruction) i).getReference();
+                if (reference instanceof MethodReference && opcode.name.startsWith("invoke")) {
+                    String calleeName = Dex.getSignature((MethodReference) reference);
+                    Node callee = callGraph.addNode(calleeName, calleeName);
+                    callGraph.addEdge(caller, callee, DOWNWARD);
+                } else if (reference instanceof FieldReference) {
+                    String signature = Dex.getSignature((FieldReference) reference);
+                    String fieldClassName = getClassName(signature);
+                    if (isFrameworkClass(fieldClassName)) {
+                        continue;
+                    }
+
+                    Node callee = callGraph.addNode(signature, signature);
+                    callGraph.addEdge(caller, callee, opcode.setsRegister() ? READ : WRITE);
+                }
+            }
+        }
+    }
+
+    private ArrayList<Unit> loadBody(String signature) {
+        if (failedSignatures.contains(signature)) {
+            return null;
+        }
+
+        String className = getClassName(signature);
+        if (isExcludedClass(className) || isFrameworkClass(className)) {
+            return null;
+        }
+
+        ClassFilter classFilter = ClassFilter.getInstance();
+        if (!classFilter.isTargetClass(className)) {
+            return null;
+        }
+
+        SootMethod sootMethod = Soot.getSootMethod(signature);
+        if (sootMethod == null || !sootMethod.isConcrete()) {
+            failedSignatures.add(signature);
+            return null;
+        }
+
+        loadStaticInitializer(className);
+
+        ArrayList<Unit> wholeUnit = wholeUnitMap.get(signature); // loaded while initializing class
+        if (wholeUnit != null) {
+            return wholeUnit;
+        }
+
+        wholeUnit = parseBody(sootMethod, signature);
+        if (wholeUnit == null) {
+            failedSignatures.add(signature);
+        } else {
+            wholeUnitMap.put(symbolTable.intern(signature), wholeUnit);
+        }
+
+        return wholeUnit;
+    }
+
+    private void loadStaticInitializer(String className) {
+        if (!initializedClassNames.add(className)) {
+            return;
+        }
+
+        SootClass sootClass = Soot.getSootClass(className);
+        parseStaticFinalValue(sootClass);
+
+        SootMethod staticInitializer = sootClass.getMethodByNameUnsafe(SootMethod.staticInitializerName);
+        if (staticInitializer == null || !staticInitializer.isConcrete()) {
+            return;
+        }
+
+        String signature = staticInitializer.toString();
+        ArrayList<Unit> wholeUnit = parseBody(staticInitializer, signature);
+        if (wholeUnit != null) {
+            wholeUnitMap.put(symbolTable.intern(signature), wholeUnit);
+        }
+    }
+
+    private void releaseBody(String signature) {
+        targetUnitsMap.remove(signature);
+        replacedUnitsMap.remove(signature);
+        bodyGenerationMap.remove(signature);
+
+        for (Consumer<String> l : releaseListeners) { // for caches holding units of the released body
+            l.accept(signature);
+        }
+
+        SootMethod sootMethod = Soot.getSootMethod(signature);
+        if (sootMethod != null && sootMethod.hasActiveBody()) {
+            sootMethod.releaseActiveBody();
+
+            MethodSource methodSource = methodSourceMap.get(signature);
+            if (methodSource != null) { // for reloading, as Soot drops the source once the body is retrieved
+                sootMethod.setSource(methodSource);
+            }
+        }
+    }
+
+    private ArrayList<Unit> parseBody(SootMethod sootMethod, String callerName) {
+        try {
+            Node caller = callGraph.addNode(callerName, callerName);
+
+            HashMap<Integer, ArrayList<Unit>> map = new HashMap<>();
+            HashMap<Unit, Unit> replacedUnitMap = new HashMap<>();
+
+            SootClass sootClass = sootMethod.getDeclaringClass();
+            Soot.promoteToBodies(sootClass);
+
+            if (LAZY_BODY && !sootMethod.hasActiveBody()) {
+                MethodSource methodSource = sootMethod.getSource();
+                if (methodSource != null) {
+                    methodSourceMap.put(callerName, methodSource);
+                }
+            }
+
+            Body body = sootMethod.retrieveActiveBody();
+            UnitPatchingChain chain = body.getUnits();
+            ArrayList<Unit> units = new ArrayList<>(chain);
+            for (Unit u : units) {
+                int unitType = getUnitType(u);
+                switch (unitType) {
+                    case VIRTUAL_INVOKE:
+                    case STATIC_INVOKE:
+                    case INTERFACE_INVOKE:
+                    case SPECIAL_INVOKE:
+                    case ASSIGN_VIRTUAL_INVOKE:
+                    case ASSIGN_STATIC_INVOKE:
+                    case ASSIGN_INTERFACE_INVOKE:
+                    case ASSIGN_SPECIAL_INVOKE: {
+                        String calleeName = getSignature(u);
+                        Node callee = callGraph.addNode(calleeName, calleeName);
+                        callGraph.addEdge(caller, callee, DOWNWARD);
+                        break;
+                    }
+
+                    case ASSIGN_SIGNATURE_CONSTANT: {
+                        String signature = getSignature(u);
+                        Value value = constantValueMap.get(signature);
+                        if (value == null) {
+                            value = getRightValue(u, unitType);
+                            constantValueMap.put(symbolTable.intern(signature), value);
+                        }
+
+                        break;
+                    }
+
+                    case ASSIGN_VARIABLE_SIGNATURE:
+                    case ASSIGN_SIGNATURE_VARIABLE: {
+                        String signature = getSignature(u);
+                        String className = getClassName(signature);
+                        if (isFrameworkClass(className)) {
+                            break;
+                        }
+
+                        if (LAZY_BODY) {
+                            loadStaticInitializer(className);
+                        }
+
+                        Node callee = callGraph.addNode(signature, signature);
+                        if (unitType == ASSIGN_VARIABLE_SIGNATURE) {
+                            Value rightValue = constantValueMap.get(signature);
+                            if (rightValue == null) {
+                                callGraph.addEdge(caller, callee, READ);
+                            } else {
+                                Value leftValue = getLeftValue(u, unitType);
+
+                                int index = units.indexOf(u);
+                                Unit newUnit = new JAssignStmt(leftValue, rightValue);
+                                units.set(index, newUnit);
+                                replacedUnitMap.put(u, newUnit);
+                            }
+                        } else {
+                            callGraph.addEdge(caller, callee, WRITE);
+                        }
+
+                        break;
+                    }
+
+                    case SWITCH: {
+                        int index = units.size() - units.indexOf(u) - 1;
+                        ArrayList<Unit> tempTargetUnits = SootUnit.getTargetUnits(u, unitType);
+                        ArrayList<Unit> targetUnits = new ArrayList<>(tempTargetUnits);
+
+                        map.put(index, targetUnits);
+                        break;
+                    }
+
+                    default: {
+                        break;
+                    }
+                }
+
+                if (!map.isEmpty()) {
+                    targetUnitsMap.put(symbolTable.intern(callerName), map);
+                }
+            }
+
+            String name = symbolTable.intern(callerName);
+            if (replacedUnitMap.isEmpty()) {
+                replacedUnitsMap.remove(name);
+            } else {
+                replacedUnitsMap.put(name, replacedUnitMap);
+            }
+
+            bodyGenerationMap.put(name, ++bodyGeneration);
+
+            Metrics metrics = Metrics.getInstance();
+            metrics.increment("bodiesBuilt");
+
+            return new ArrayList<>(units);
+        } catch (RuntimeException | StackOverflowError | OutOfMemoryError ignored) { // for Soot internal error
+            return null;
+        }
+    }
+
+    private void addResolvedEdges() {
+        if (CALL_GRAPH_MODE.equals("static")) {
+            return;
+        }
+
+        if (Boolean.parseBoolean(Configuration.getProperty("soot.lazyResolve"))) {
+            System.out.println("[*] WARNING : Call graph mode " + CALL_GRAPH_MODE + " needs soot.lazyResolve=false");
+            return;
+        }
+
+        if (LAZY_BODY) { // for whole-program bodies the body cache cannot bound
+            System.out.println("[*] WARNING : Call graph mode " + CALL_GRAPH_MODE + " needs inspect.lazyBody=false");
+            return;
+        }
+
+        Path cachePath = getCallGraphCachePath();
+        ArrayList<String[]> edges = (cachePath == null) ? null : readCallGraphCache(cachePath);
+        if (edges == null) {
+            edges = new ArrayList<>();
+            ArrayList<String[]> resolvedEdges = SootCallGraph.getEdges(CALL_GRAPH_MODE, getEntryClassNames());
+            for (String[] e : resolvedEdges) {
+                String className = getClassName(e[0]);
+                if (!isExcludedClass(className) && !isFrameworkClass(className)) {
+                    edges.add(e);
+                }
+            }
+
+            if (cachePath != null) { // for edges already filtered by the settings in the cache key
+                writeCallGraphCache(cachePath, edges);
+            }
+        }
+
+        int edgeCount = 0;
+        for (String[] e : edges) {
+            String callerName = e[0];
+            String calleeName = e[1];
+            Node caller = callGraph.addNode(callerName, callerName);
+            Node callee = callGraph.addNode(calleeName, calleeName);
+            callGraph.addEdge(caller, callee, DOWNWARD);
+            edgeCount++;
+        }
+
+        System.out.println("[*] Resolved call edges : " + edgeCount + " (" + CALL_GRAPH_MODE + ")");
+    }
+
+    private ArrayList<String> getEntryClassNames() {
+        ApkParser apkParser = ApkParser.getInstance();
+        String packageName = apkParser.getPackageName();
+        String appClassName = apkParser.getAppClassName();
+
+        ArrayList<String> classNames = new ArrayList<>(apkParser.getAppComponents());
+        if (appClassName != null) {
+            classNames.add(appClassName);
+        }
+
+        ArrayList<String> entryClassNames = new ArrayList<>();
+        for (String s : classNames) {
+            String className = (s.startsWith(".") && packageName != null) ? packageName + s : s; // for names relative to the package
+            entryClassNames.add(className);
+        }
+
+        return entryClassNames;
+    }
+
+    private Path getCallGraphCachePath() {
+        ApkParser apkParser = ApkParser.getInstance();
+        String packageName = apkParser.getPackageName();
+        String cacheKey = getCallGraphCacheKey();
+        if (packageName == null || cacheKey == null) {
+            return null;
+        }
+
+        String cacheDir = Configuration.getProperty("callgraph.cacheDir");
+
+        return Paths.get(cacheDir, packageName + "-" + cacheKey + "-" + CALL_GRAPH_MODE + ".txt");
+    }
+
+    private String getCallGraphCacheKey() { // for the app contents and the filters shaping the call graph
+        ApkParser apkParser = ApkParser.getInstance();
+        HashMap<String, String> digests = apkParser.getDexClassDigests();
+        if (digests.isEmpty()) {
+            apkParser.setDexClassDigests();
+        }
+
+        if (digests.isEmpty()) {
+            return null;
+        }
+
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            TreeMap<String, String> sortedDigests = new TreeMap<>(digests);
+            Set<Map.Entry<String, String>> entries = sortedDigests.entrySet();
+            for (Map.Entry<String, String> e : entries) {
+                updateDigest(messageDigest, e.getKey() + "=" + e.getValue());
+            }
+
+            for (String k : List.of("inspect.excludedPackages", "inspect.includedPackages", "inspect.prefilter", "slice.upperLevel", "slice.lowerLevel")) {
+                updateDigest(messageDigest, k + "=" + Configuration.getProperty(k));
+            }
+
+            if (ClassFilter.isEnabled()) {
+                ClassFilter classFilter = ClassFilter.getInstance();
+                TreeSet<String> targetClassNames = new TreeSet<>(classFilter.getTargetClassNames());
+                for (String s : targetClassNames) {
+                    updateDigest(messageDigest, s);
+                }
+            }
+
+            byte[] bytes = messageDigest.digest();
+            HexFormat hexFormat = HexFormat.of();
+
+            return hexFormat.formatHex(bytes);
+        } catch (NoSuchAlgorithmException ignored) {
+            System.out.println("[*] ERROR : Cannot get call graph cache key!");
+            return null;
+        }
+    }
+
+    private void updateDigest(MessageDigest messageDigest, String str) {
+        byte[] bytes = (str + "\n").getBytes(StandardCharsets.UTF_8);
+        messageDigest.update(bytes);
+    }
+
+    private ArrayList<String[]> readCallGraphCache(Path cachePath) {
+        if (!Files.exists(cachePath)) {
+            return null;
+        }
+
+        try {
+            ArrayList<String[]> edges = new ArrayList<>();
+            List<String> lines = Files.readAllLines(cachePath, StandardCharsets.UTF_8);
+            for (String l : lines) {
+                String[] arr = l.split("\t");
+                if (arr.length == 2) {
+                    edges.add(arr);
+                }
+            }
+
+            return edges;
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot read call graph cache: " + cachePath);
+            return null;
+        }
+    }
+
+    private void writeCallGraphCache(Path cachePath, ArrayList<String[]> edges) {
+        try {
+            Path parent = cachePath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            ArrayList<String> lines = new ArrayList<>();
+            for (String[] e : edges) {
+                lines.add(e[0] + "\t" + e[1]);
+            }
+
+            Files.write(cachePath, lines, StandardCharsets.UTF_8);
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot write call graph cache: " + cachePath);
+        }
+    }
+
+    private boolean isExcludedClass(String className) {
+        PackageFilter packageFilter = PackageFilter.getInstance();
+
+        return packageFilter.isExcludedClass(className);
+    }
+
+    private boolean isFrameworkClass(String className) {
+        ClassClassifier classClassifier = ClassClassifier.getInstance();
+
+        return classClassifier.isFramework(className);
+    }
+
     private void parseStaticFinalValue(SootClass sootClass) {
         Chain<SootField> fields = sootClass.getFields();
         for (SootField f : fields) {
@@ -222,7 +798,7 @@ public class CodeInspector {
                 value = StringConstant.v("");
             }
 
-            constantValueMap.putIfAbsent(key, value);
+            constantValueMap.putIfAbsent(symbolTable.intern(key), value);
         }
     }
 
@@ -0,0 +1,111 @@
+package com.ccadroid.inspect;
+
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.PackageTrie;
+import org.jf.dexlib2.iface.ClassDef;
+import org.jf.dexlib2.iface.Method;
+import org.jf.dexlib2.iface.MethodImplementation;
+import org.jf.dexlib2.iface.instruction.Instruction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static com.ccadroid.util.dex.Dex.getTypeName;
+
+public class PackageFilter {
+    private final PackageTrie packageTrie;
+    private final ArrayList<String> excludedPackages;
+    private final ArrayList<String> includedPackages;
+    private final HashMap<String, Boolean> resultMap;
+
+    public PackageFilter() {
+        packageTrie = new PackageTrie();
+        excludedPackages = getPackages("inspect.excludedPackages");
+        includedPackages = getPackages("inspect.includedPackages");
+        resultMap = new HashMap<>();
+
+        for (String p : excludedPackages) {
+            packageTrie.addPackage(p, true);
+        }
+
+        for (String p : includedPackages) {
+            packageTrie.addPackage(p, false);
+        }
+    }
+
+    public static PackageFilter getInstance() {
+        return PackageFilter.Holder.instance;
+    }
+
+    public boolean isExcludedClass(String className) {
+        Boolean result = resultMap.get(className);
+        if (result == null) {
+            result = packageTrie.isExcluded(className);
+            resultMap.put(className, result);
+        }
+
+        return result;
+    }
+
+    public ArrayList<String> getExcludedPackages() {
+        return excludedPackages;
+    }
+
+    public ArrayList<String> getIncludedPackages() {
+        return includedPackages;
+    }
+
+    public void printStatistics() {
+        int classCount = 0;
+        int methodCount = 0;
+        long unitCount = 0;
+
+        ApkParser apkParser = ApkParser.getInstance();
+        ArrayList<ClassDef> classDefs = apkParser.getDexClassDefs();
+        for (ClassDef c : classDefs) {
+            String className = getTypeName(c.getType());
+            if (!isExcludedClass(className)) {
+                continue;
+            }
+
+            classCount++;
+            for (Method m : c.getMethods()) {
+                MethodImplementation implementation = m.getImplementation();
+                if (implementation == null) {
+                    continue;
+                }
+
+                methodCount++;
+                for (Instruction ignored : implementation.getInstructions()) {
+                    unitCount++;
+                }
+            }
+        }
+
+        System.out.println("[*] Skipped classes : " + classCount + " / " + classDefs.size() + " (methods : " + methodCount + ", units : " + unitCount + ")");
+    }
+
+    private ArrayList<String> getPackages(String key) {
+        ArrayList<String> packages = new ArrayList<>();
+        String value = Configuration.getProperty(key);
+        if (value == null) {
+            return packages;
+        }
+
+        String[] strArr = value.split(",");
+        for (String s : strArr) {
+            String packageName = s.trim();
+            if (packageName.isEmpty()) {
+                continue;
+            }
+
+            packages.add(packageName);
+        }
+
+        return packages;
+    }
+
+    private static class Holder {
+        private static final PackageFilter instance = new PackageFilter();
+    }
+}
\ No newline at end of file
@@ -11,6 +11,7 @@ import soot.SootClass;
 import soot.SootMethod;
 import soot.Unit;
 import soot.Value;
+import soot.ValueBox;
 
 import java.io.File;
 import java.io.IOException;
@@ -25,11 +26,10 @@ import static com.ccadroid.check.RuleConstants.SLICING_SIGNATURES;
 import static com.ccadroid.util.soot.SootUnit.*;
 
 public class SlicingCriteriaGenerator {
-    private final ApkParser apkParser;
     private final CodeInspector codeInspector;
+    private BitSet reachableMethods;
 
     public SlicingCriteriaGenerator() {
-        apkParser = ApkParser.getInstance();
         codeInspector = CodeInspector.getInstance();
     }
 
@@ -39,12 +39,10 @@ public class SlicingCriteriaGenerator {
 
     public ArrayList<SlicingCriterion> createSlicingCriteria(File ruleFileDir) {
         ArrayList<SlicingCriterion> slicingCriteria = new ArrayList<>();
-        HashMap<String, ArrayList<ArrayList<String>>> listOfCallersMap = new HashMap<>();
 
-        String packageName = apkParser.getPackageName();
-        String appClassName = apkParser.getAppClassName();
-        ArrayList<String> appComponents = apkParser.getAppComponents();
+        setReachableMethods();
 
+        HashSet<String> candidateKeys = new HashSet<>();
         ArrayList<SlicingCriterion> candidates = getSlicingCandidates(ruleFileDir);
         for (SlicingCriterion sc : candidates) {
             String targetSignature = sc.getTargetStatement();
@@ -52,6 +50,11 @@ public class SlicingCriteriaGenerator {
                 continue;
             }
 
+            String candidateKey = targetSignature + sc.getTargetParamNumbers();
+            if (CodeInspector.isLazyBody() && !candidateKeys.add(candidateKey)) { // for signatures shared by several rules, as reloaded bodies give new locals
+                continue;
+            }
+
             Node callee = codeInspector.getNode(targetSignature);
             if (callee == null) {
                 continue;
@@ -63,18 +66,12 @@ public class SlicingCriteriaGenerator {
             List<Edge> edges = stream.collect(Collectors.toList());
             for (Edge e : edges) {
                 Node caller = e.getSourceNode();
-                String callerName = caller.getId();
-                ArrayList<ArrayList<String>> listOfCallers = listOfCallersMap.get(callerName);
-                if (listOfCallers == null) {
-                    listOfCallers = codeInspector.traverseCallers(callerName, true);
-                    setReachableCallers(packageName, appClassName, appComponents, listOfCallers);
-                    listOfCallersMap.put(callerName, listOfCallers);
-                }
-
-                if (listOfCallers.isEmpty()) {
+                if (!reachableMethods.get(caller.getIndex())) {
                     continue;
                 }
 
+                String callerName = caller.getId();
+
                 ArrayList<SlicingCriterion> criteria = createSlicingCriteria(callerName, targetSignature, INVOKE, targetParamNumbers);
                 slicingCriteria.addAll(criteria);
             }
@@ -176,12 +173,19 @@ public class SlicingCriteriaGenerator {
                 continue;
             }
 
+            ArrayList<Integer> targetValueBoxIndexes = getValueBoxIndexes(unit, targetVariables);
+            if (targetValueBoxIndexes == null) {
+                System.out.println("[*] ERROR : Cannot locate target variables: " + targetVariables + " in " + unit);
+                continue;
+            }
+
             SlicingCriterion slicingCriterion = new SlicingCriterion();
             slicingCriterion.setCallerName(callerName);
             slicingCriterion.setTargetStatement(targetStatement);
             slicingCriterion.setTargetParamNumbers(targetParamNumbers);
             slicingCriterion.setTargetUnitIndex(i);
             slicingCriterion.setTargetVariables(new ArrayList<>(targetVariables));
+            slicingCriterion.setTargetValueBoxIndexes(targetValueBoxIndexes);
 
             slicingCriteria.add(slicingCriterion);
         }
@@ -189,6 +193,24 @@ public class SlicingCriteriaGenerator {
         return slicingCriteria;
     }
 
+    public ArrayList<String> getTargetSignatures(File ruleFileDir) {
+        ArrayList<String> targetSignatures = new ArrayList<>();
+
+        ArrayList<SlicingCriterion> candidates = getSlicingCandidates(ruleFileDir);
+        for (SlicingCriterion sc : candidates) {
+            String targetSignature = sc.getTargetStatement();
+            targetSignatures.add(targetSignature);
+        }
+
+        return targetSignatures;
+    }
+
+    public boolean isReachable(String signature) {
+        Node node = codeInspector.getNode(signature);
+
+        return node != null && reachableMethods != null && reachableMethods.get(node.getIndex());
+    }
+
     private ArrayList<SlicingCriterion> getSlicingCandidates(File ruleFileDir) {
         ArrayList<SlicingCriterion> candidates = new ArrayList<>();
 
@@ -247,60 +269,42 @@ public class SlicingCriteriaGenerator {
         return !sootClass.isPhantomClass() || !methodsStr.contains(signature);
     }
 
-    private void setReachableCallers(String packageName, String appClassName, ArrayList<String> appComponents, ArrayList<ArrayList<String>> listOfCallers) {
-        ArrayList<ArrayList<String>> unreachables = new ArrayList<>();
+    private void setReachableMethods() {
+        ClassClassifier classClassifier = ClassClassifier.getInstance();
 
-        for (ArrayList<String> l : listOfCallers) {
-            boolean flag = true;
+        ArrayList<Node> entryNodes = new ArrayList<>();
+        List<Node> nodes = codeInspector.getNodes();
+        for (Node n : nodes) {
+            String className = getClassName(n.getId());
+            if (classClassifier.isAppRelated(className)) {
+                entryNodes.add(n);
+            }
+        }
 
-            for (String c : l) {
-                String className = getClassName(c);
-                if (isAppComponent(packageName, appClassName, appComponents, className)) {
-                    flag = false;
-                    break;
-                }
+        reachableMethods = codeInspector.traverseReachables(entryNodes); // for callers reachable from app code
+    }
 
-                if (isPackageNameRelated(packageName, className)) {
-                    flag = false;
+    private ArrayList<Integer> getValueBoxIndexes(Unit unit, ArrayList<Value> values) { // for target variables in a rebuilt body
+        List<ValueBox> valueBoxes = unit.getUseBoxes();
+        ArrayList<Integer> indexes = new ArrayList<>();
+        for (Value v : values) {
+            int index = -1;
+            int valueBoxCount = valueBoxes.size();
+            for (int i = 0; i < valueBoxCount; i++) {
+                if (valueBoxes.get(i).getValue() == v) {
+                    index = i;
                     break;
                 }
             }
 
-            if (flag) {
-                unreachables.add(l);
+            if (index == -1) {
+                return null;
             }
-        }
-
-        listOfCallers.removeAll(unreachables);
-    }
 
-    private boolean isAppComponent(String packageName, String appClassName, ArrayList<String> appComponents, String targetClassName) {
-        String className = targetClassName.split("\\$")[0];
-
-        return (className.contains(packageName) || className.equals(appClassName) || appComponents.contains(className));
-    }
-
-    private boolean isPackageNameRelated(String packageName, String targetClassName) {
-        HashSet<String> tempSet1;
-        HashSet<String> tempSet2;
-        HashSet<String> set1 = new HashSet<>(Arrays.asList(packageName.split("\\.")));
-        HashSet<String> set2 = new HashSet<>(Arrays.asList(targetClassName.split("\\.")));
-        if (set1.size() <= set2.size()) {
-            tempSet1 = set1;
-            tempSet2 = set2;
-        } else {
-            tempSet1 = set2;
-            tempSet2 = set1;
-        }
-
-        int count = 0;
-        for (String s : tempSet1) {
-            if (tempSet2.contains(s)) {
-                count++;
-            }
+            indexes.add(index);
         }
 
-        return count > 1;
+        return indexes;
     }
 
     private boolean isDuplicatedCriterion(String targetStatement, ArrayList<Value> targetVariables, ArrayList<SlicingCriterion> slicingCriteria) {
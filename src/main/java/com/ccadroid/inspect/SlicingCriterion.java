@@ -10,6 +10,7 @@ public class SlicingCriterion {
     private int targetUnitIndex;
     private ArrayList<Integer> targetParamNumbers;
     private ArrayList<Value> targetVariables;
+    private ArrayList<Integer> targetValueBoxIndexes;
 
     public String getCallerName() {
         return callerName;
@@ -51,6 +52,14 @@ public class SlicingCriterion {
         this.targetVariables = targetVariables;
     }
 
+    public ArrayList<Integer> getTargetValueBoxIndexes() {
+        return targetValueBoxIndexes;
+    }
+
+    public void setTargetValueBoxIndexes(ArrayList<Integer> targetValueBoxIndexes) {
+        this.targetValueBoxIndexes = targetValueBoxIndexes;
+    }
+
     @Override
     public int hashCode() {
         return callerName.hashCode() + targetStatement.hashCode() + targetUnitIndex + targetVariables.hashCode();
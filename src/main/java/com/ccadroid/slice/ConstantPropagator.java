@@ -0,0 +1,736 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.inspect.CodeInspector;
+import com.ccadroid.util.Configuration;
+import soot.*;
+import soot.jimple.*;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class ConstantPropagator {
+    private static final int CACHE_SIZE = Integer.parseInt(Configuration.getProperty("slice.constantCacheSize"));
+    private static final int MAX_ARRAY_LENGTH = 0x10000;
+    private static final Object NOT_CONSTANT = new Object();
+    private final CodeInspector codeInspector;
+    private final LinkedHashMap<String, Result> resultMap;
+
+    private ConstantPropagator() {
+        codeInspector = CodeInspector.getInstance();
+        resultMap = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        codeInspector.addReleaseListener(this::release);
+    }
+
+    public static ConstantPropagator getInstance() {
+        return ConstantPropagator.Holder.instance;
+    }
+
+    public static Value toConstant(Object value) {
+        if (value instanceof Integer) {
+            return IntConstant.v((Integer) value);
+        } else if (value instanceof Long) {
+            return LongConstant.v((Long) value);
+        } else if (value instanceof String) {
+            return StringConstant.v((String) value);
+        } else { // for byte arrays without Jimple constants
+            return null;
+        }
+    }
+
+    public Result analyze(String signature) {
+        return analyze(signature, new HashMap<>());
+    }
+
+    public Result analyze(String signature, HashMap<Integer, Object> paramConstantMap) {
+        ArrayList<Unit> wholeUnit = codeInspector.getWholeUnit(signature);
+        if (wholeUnit == null || wholeUnit.isEmpty()) {
+            return null;
+        }
+
+        String key = getKey(signature, paramConstantMap);
+        long generation = codeInspector.getBodyGeneration(signature);
+        Result result = resultMap.get(key);
+        if (result != null && result.generation == generation) { // for bodies not reloaded since the last run
+            return result;
+        }
+
+        HashMap<Unit, Unit> replacedUnitMap = codeInspector.getReplacedUnitMap(signature);
+        result = propagate(wholeUnit, replacedUnitMap, paramConstantMap);
+        result.generation = generation;
+        resultMap.put(key, result);
+
+        return result;
+    }
+
+    public void clear() {
+        resultMap.clear();
+    }
+
+    private void release(String signature) {
+        String prefix = signature + "|";
+        Set<String> keys = resultMap.keySet();
+        keys.removeIf(k -> k.equals(signature) || k.startsWith(prefix));
+    }
+
+    private String getKey(String signature, HashMap<Integer, Object> paramConstantMap) {
+        if (paramConstantMap.isEmpty()) {
+            return signature;
+        }
+
+        StringBuilder builder = new StringBuilder(signature);
+        TreeMap<Integer, Object> sortedMap = new TreeMap<>(paramConstantMap);
+        Set<Map.Entry<Integer, Object>> entries = sortedMap.entrySet();
+        for (Map.Entry<Integer, Object> e : entries) {
+            Object value = e.getValue();
+            String valueStr = (value instanceof byte[]) ? Arrays.toString((byte[]) value) : value.getClass().getSimpleName() + ":" + value;
+            builder.append('|').append(e.getKey()).append('=').append(valueStr);
+        }
+
+        return builder.toString();
+    }
+
+    Result propagate(ArrayList<Unit> wholeUnit, HashMap<Unit, Unit> replacedUnitMap, HashMap<Integer, Object> paramConstantMap) {
+        HashMap<Unit, Integer> indexMap = new HashMap<>();
+        HashSet<Local> locals = new HashSet<>();
+        for (int i = 0; i < wholeUnit.size(); i++) {
+            Unit unit = wholeUnit.get(i);
+            indexMap.put(unit, i);
+
+            List<ValueBox> boxes = unit.getDefBoxes();
+            for (ValueBox b : boxes) {
+                Value value = b.getValue();
+                if (value instanceof Local) {
+                    locals.add((Local) value);
+                }
+            }
+        }
+
+        HashMap<Unit, HashMap<Local, Object>> inStateMap = new HashMap<>();
+        ArrayDeque<Unit> worklist = new ArrayDeque<>();
+        HashSet<Unit> queuedUnits = new HashSet<>();
+
+        Unit entryUnit = wholeUnit.get(0);
+        inStateMap.put(entryUnit, new HashMap<>());
+        worklist.add(entryUnit);
+        queuedUnits.add(entryUnit);
+
+        for (Unit u : wholeUnit) { // for exception handlers reached without explicit edges
+            if (!isCaughtException(u) || u == entryUnit) {
+                continue;
+            }
+
+            HashMap<Local, Object> state = new HashMap<>();
+            for (Local l : locals) {
+                state.put(l, NOT_CONSTANT);
+            }
+
+            inStateMap.put(u, state);
+            worklist.add(u);
+            queuedUnits.add(u);
+        }
+
+        while (!worklist.isEmpty()) {
+            Unit unit = worklist.poll();
+            queuedUnits.remove(unit);
+
+            HashMap<Local, Object> outState = new HashMap<>(inStateMap.get(unit));
+            transfer(unit, outState, paramConstantMap);
+
+            ArrayList<Unit> successors = getSuccessors(unit, outState, wholeUnit, indexMap, replacedUnitMap);
+            for (Unit s : successors) {
+                HashMap<Local, Object> state = inStateMap.get(s);
+                boolean isChanged;
+                if (state == null) {
+                    inStateMap.put(s, new HashMap<>(outState));
+                    isChanged = true;
+                } else {
+                    isChanged = meet(state, outState);
+                }
+
+                if (isChanged && queuedUnits.add(s)) {
+                    worklist.add(s);
+                }
+            }
+        }
+
+        return new Result(wholeUnit, inStateMap);
+    }
+
+    private boolean meet(HashMap<Local, Object> state, HashMap<Local, Object> incomingState) {
+        boolean isChanged = false;
+
+        Set<Map.Entry<Local, Object>> entries = incomingState.entrySet();
+        for (Map.Entry<Local, Object> e : entries) {
+            Local local = e.getKey();
+            Object value1 = state.get(local);
+            Object value2 = e.getValue();
+            if (value1 == NOT_CONSTANT || isEqual(value1, value2)) {
+                continue;
+            }
+
+            state.put(local, (value1 == null) ? value2 : NOT_CONSTANT);
+            isChanged = true;
+        }
+
+        return isChanged;
+    }
+
+    private void transfer(Unit unit, HashMap<Local, Object> state, HashMap<Integer, Object> paramConstantMap) {
+        Stmt stmt = (Stmt) unit;
+        if (stmt.containsInvokeExpr()) { // for arrays the callee may modify
+            InvokeExpr expr = stmt.getInvokeExpr();
+            SootMethodRef methodRef = expr.getMethodRef();
+            String className = methodRef.getDeclaringClass().getName();
+            if (!className.equals("java.lang.String")) {
+                List<Value> args = expr.getArgs();
+                for (Value v : args) {
+                    if (v instanceof Local && state.get(v) instanceof byte[]) {
+                        state.put((Local) v, NOT_CONSTANT);
+                    }
+                }
+            }
+
+            if (expr instanceof SpecialInvokeExpr && methodRef.getName().equals("<init>") && className.equals("java.lang.String")) {
+                SpecialInvokeExpr specialInvokeExpr = (SpecialInvokeExpr) expr;
+                Local base = (Local) specialInvokeExpr.getBase();
+                state.put(base, evaluateStringInit(expr, state));
+            }
+        }
+
+        if (stmt instanceof IdentityStmt) {
+            IdentityStmt identityStmt = (IdentityStmt) stmt;
+            Value leftValue = identityStmt.getLeftOp();
+            Value rightValue = identityStmt.getRightOp();
+            if (!(leftValue instanceof Local)) {
+                return;
+            }
+
+            Object value = NOT_CONSTANT;
+            if (rightValue instanceof ParameterRef) {
+                int index = ((ParameterRef) rightValue).getIndex();
+                value = paramConstantMap.getOrDefault(index, NOT_CONSTANT);
+            }
+
+            state.put((Local) leftValue, value);
+        } else if (stmt instanceof AssignStmt) {
+            AssignStmt assignStmt = (AssignStmt) stmt;
+            Value leftValue = assignStmt.getLeftOp();
+            Value rightValue = assignStmt.getRightOp();
+            Value sourceValue = (rightValue instanceof CastExpr) ? ((CastExpr) rightValue).getOp() : rightValue;
+            if (sourceValue instanceof Local && state.get(sourceValue) instanceof byte[]) { // for arrays aliased or escaped
+                state.put((Local) sourceValue, NOT_CONSTANT);
+                if (leftValue instanceof Local) {
+                    state.put((Local) leftValue, NOT_CONSTANT);
+                }
+
+                return;
+            }
+
+            if (leftValue instanceof Local) {
+                Object value = evaluate(rightValue, state);
+                if (value == null) {
+                    state.remove(leftValue);
+                } else {
+                    state.put((Local) leftValue, value);
+                }
+            } else if (leftValue instanceof ArrayRef) {
+                ArrayRef arrayRef = (ArrayRef) leftValue;
+                Local base = (Local) arrayRef.getBase();
+                Object array = state.get(base);
+                if (array == null) {
+                    return;
+                }
+
+                Object index = evaluate(arrayRef.getIndex(), state);
+                Object value = evaluate(rightValue, state);
+                if (array instanceof byte[] && index instanceof Integer && value instanceof Integer) {
+                    byte[] bytes = ((byte[]) array).clone();
+                    int i = (Integer) index;
+                    if (i >= 0 && i < bytes.length) {
+                        bytes[i] = (byte) (int) (Integer) value;
+                        state.put(base, bytes);
+                        return;
+                    }
+                }
+
+                state.put(base, NOT_CONSTANT);
+            }
+        }
+    }
+
+    private ArrayList<Unit> getSuccessors(Unit unit, HashMap<Local, Object> state, ArrayList<Unit> wholeUnit, HashMap<Unit, Integer> indexMap, HashMap<Unit, Unit> replacedUnitMap) {
+        ArrayList<Unit> successors = new ArrayList<>();
+
+        if (unit instanceof IfStmt) {
+            IfStmt ifStmt = (IfStmt) unit;
+            Object result = evaluate(ifStmt.getCondition(), state);
+            if (!(result instanceof Integer) || (Integer) result != 0) {
+                successors.add(ifStmt.getTarget());
+            }
+
+            if (!(result instanceof Integer) || (Integer) result == 0) {
+                addNextUnit(unit, wholeUnit, indexMap, successors);
+            }
+        } else if (unit instanceof GotoStmt) {
+            GotoStmt gotoStmt = (GotoStmt) unit;
+            successors.add(gotoStmt.getTarget());
+        } else if (unit instanceof TableSwitchStmt) {
+            TableSwitchStmt switchStmt = (TableSwitchStmt) unit;
+            Object key = evaluate(switchStmt.getKey(), state);
+            if (key instanceof Integer) {
+                int index = (Integer) key - switchStmt.getLowIndex();
+                boolean isInRange = index >= 0 && index < switchStmt.getTargets().size();
+                successors.add(isInRange ? switchStmt.getTarget(index) : switchStmt.getDefaultTarget());
+            } else {
+                successors.addAll(switchStmt.getTargets());
+                successors.add(switchStmt.getDefaultTarget());
+            }
+        } else if (unit instanceof LookupSwitchStmt) {
+            LookupSwitchStmt switchStmt = (LookupSwitchStmt) unit;
+            Object key = evaluate(switchStmt.getKey(), state);
+            if (key instanceof Integer) {
+                Unit target = switchStmt.getDefaultTarget();
+                for (int i = 0; i < switchStmt.getTargetCount(); i++) {
+                    if (switchStmt.getLookupValue(i) == (Integer) key) {
+                        target = switchStmt.getTarget(i);
+                        break;
+                    }
+                }
+
+                successors.add(target);
+            } else {
+                successors.addAll(switchStmt.getTargets());
+                successors.add(switchStmt.getDefaultTarget());
+            }
+        } else if (unit.fallsThrough()) {
+            addNextUnit(unit, wholeUnit, indexMap, successors);
+        }
+
+        ArrayList<Unit> resolvedSuccessors = new ArrayList<>();
+        for (Unit s : successors) {
+            Unit resolvedUnit = indexMap.containsKey(s) ? s : replacedUnitMap.get(s); // for targets replaced by folding
+            if (resolvedUnit == null) { // for unknown targets, as any unit may follow
+                return new ArrayList<>(wholeUnit);
+            }
+
+            resolvedSuccessors.add(resolvedUnit);
+        }
+
+        return resolvedSuccessors;
+    }
+
+    private void addNextUnit(Unit unit, ArrayList<Unit> wholeUnit, HashMap<Unit, Integer> indexMap, ArrayList<Unit> successors) {
+        int nextIndex = indexMap.get(unit) + 1;
+        if (nextIndex < wholeUnit.size()) {
+            successors.add(wholeUnit.get(nextIndex));
+        }
+    }
+
+    private static Object evaluate(Value value, Map<Local, Object> state) { // null for undefined, NOT_CONSTANT for non-constant
+        if (value instanceof IntConstant) {
+            return ((IntConstant) value).value;
+        } else if (value instanceof LongConstant) {
+            return ((LongConstant) value).value;
+        } else if (value instanceof StringConstant) {
+            return ((StringConstant) value).value;
+        } else if (value instanceof Local) {
+            return state.get(value);
+        } else if (value instanceof CastExpr) {
+            CastExpr expr = (CastExpr) value;
+            Object op = evaluate(expr.getOp(), state);
+
+            return isConstant(op) ? evaluateCast(op, expr.getCastType()) : op;
+        } else if (value instanceof NegExpr) {
+            Object op = evaluate(((NegExpr) value).getOp(), state);
+            if (op instanceof Integer) {
+                return -(Integer) op;
+            } else if (op instanceof Long) {
+                return -(Long) op;
+            }
+
+            return (op == null) ? null : NOT_CONSTANT;
+        } else if (value instanceof BinopExpr) {
+            BinopExpr expr = (BinopExpr) value;
+            Object op1 = evaluate(expr.getOp1(), state);
+            Object op2 = evaluate(expr.getOp2(), state);
+            if (op1 == null || op2 == null) {
+                return null;
+            }
+
+            return (isConstant(op1) && isConstant(op2)) ? evaluateBinop(expr, op1, op2) : NOT_CONSTANT;
+        } else if (value instanceof LengthExpr) {
+            Object op = evaluate(((LengthExpr) value).getOp(), state);
+            if (op instanceof byte[]) {
+                return ((byte[]) op).length;
+            }
+
+            return (op == null) ? null : NOT_CONSTANT;
+        } else if (value instanceof ArrayRef) {
+            ArrayRef arrayRef = (ArrayRef) value;
+            Object array = evaluate(arrayRef.getBase(), state);
+            Object index = evaluate(arrayRef.getIndex(), state);
+            if (array instanceof byte[] && index instanceof Integer) {
+                byte[] bytes = (byte[]) array;
+                int i = (Integer) index;
+
+                return (i >= 0 && i < bytes.length) ? (int) bytes[i] : NOT_CONSTANT;
+            }
+
+            return NOT_CONSTANT;
+        } else if (value instanceof NewArrayExpr) {
+            NewArrayExpr expr = (NewArrayExpr) value;
+            Object size = evaluate(expr.getSize(), state);
+            if (expr.getBaseType() instanceof ByteType && size instanceof Integer) {
+                int length = (Integer) size;
+
+                return (length >= 0 && length <= MAX_ARRAY_LENGTH) ? new byte[length] : NOT_CONSTANT;
+            }
+
+            return NOT_CONSTANT;
+        } else if (value instanceof InvokeExpr) {
+            return evaluateInvoke((InvokeExpr) value, state);
+        } else {
+            return NOT_CONSTANT;
+        }
+    }
+
+    private static Object evaluateCast(Object op, Type type) {
+        if (op instanceof String || op instanceof byte[]) {
+            return (type instanceof RefType || type instanceof ArrayType) ? op : NOT_CONSTANT;
+        }
+
+        long n = (op instanceof Integer) ? (Integer) op : (Long) op;
+        if (type instanceof LongType) {
+            return n;
+        } else if (type instanceof IntType || type instanceof BooleanType) {
+            return (int) n;
+        } else if (type instanceof ByteType) {
+            return (int) (byte) n;
+        } else if (type instanceof ShortType) {
+            return (int) (short) n;
+        } else if (type instanceof CharType) {
+            return (int) (char) n;
+        } else {
+            return NOT_CONSTANT;
+        }
+    }
+
+    private static Object evaluateBinop(BinopExpr expr, Object op1, Object op2) {
+        if (op1 instanceof String || op1 instanceof byte[] || op2 instanceof String || op2 instanceof byte[]) { // for references compared by identity
+            return NOT_CONSTANT;
+        }
+
+        if (expr instanceof EqExpr || expr instanceof NeExpr) {
+            boolean flag = op1.equals(op2);
+
+            return (flag == (expr instanceof EqExpr)) ? 1 : 0;
+        }
+
+        if (op1 instanceof Integer && op2 instanceof Integer) {
+            return evaluateIntBinop(expr, (Integer) op1, (Integer) op2);
+        } else if (op1 instanceof Long && op2 instanceof Long) {
+            return evaluateLongBinop(expr, (Long) op1, (Long) op2);
+        } else if (op1 instanceof Long && op2 instanceof Integer) { // for shift distances
+            if (expr instanceof ShlExpr) {
+                return (Long) op1 << (Integer) op2;
+            } else if (expr instanceof ShrExpr) {
+                return (Long) op1 >> (Integer) op2;
+            } else if (expr instanceof UshrExpr) {
+                return (Long) op1 >>> (Integer) op2;
+            }
+        }
+
+        return NOT_CONSTANT;
+    }
+
+    private static Object evaluateIntBinop(BinopExpr expr, int n1, int n2) {
+        if (expr instanceof AddExpr) {
+            return n1 + n2;
+        } else if (expr instanceof SubExpr) {
+            return n1 - n2;
+        } else if (expr instanceof MulExpr) {
+            return n1 * n2;
+        } else if (expr instanceof DivExpr) {
+            return (n2 == 0) ? NOT_CONSTANT : n1 / n2;
+        } else if (expr instanceof RemExpr) {
+            return (n2 == 0) ? NOT_CONSTANT : n1 % n2;
+        } else if (expr instanceof AndExpr) {
+            return n1 & n2;
+        } else if (expr instanceof OrExpr) {
+            return n1 | n2;
+        } else if (expr instanceof XorExpr) {
+            return n1 ^ n2;
+        } else if (expr instanceof ShlExpr) {
+            return n1 << n2;
+        } else if (expr instanceof ShrExpr) {
+            return n1 >> n2;
+        } else if (expr instanceof UshrExpr) {
+            return n1 >>> n2;
+        } else if (expr instanceof GeExpr) {
+            return (n1 >= n2) ? 1 : 0;
+        } else if (expr instanceof GtExpr) {
+            return (n1 > n2) ? 1 : 0;
+        } else if (expr instanceof LtExpr) {
+            return (n1 < n2) ? 1 : 0;
+        } else if (expr instanceof LeExpr) {
+            return (n1 <= n2) ? 1 : 0;
+        } else if (expr instanceof CmpExpr || expr instanceof CmplExpr || expr instanceof CmpgExpr) {
+            return Integer.compare(n1, n2);
+        } else {
+            return NOT_CONSTANT;
+        }
+    }
+
+    private static Object evaluateLongBinop(BinopExpr expr, long n1, long n2) {
+        if (expr instanceof AddExpr) {
+            return n1 + n2;
+        } else if (expr instanceof SubExpr) {
+            return n1 - n2;
+        } else if (expr instanceof MulExpr) {
+            return n1 * n2;
+        } else if (expr instanceof DivExpr) {
+            return (n2 == 0) ? NOT_CONSTANT : n1 / n2;
+        } else if (expr instanceof RemExpr) {
+            return (n2 == 0) ? NOT_CONSTANT : n1 % n2;
+        } else if (expr instanceof AndExpr) {
+            return n1 & n2;
+        } else if (expr instanceof OrExpr) {
+            return n1 | n2;
+        } else if (expr instanceof XorExpr) {
+            return n1 ^ n2;
+        } else if (expr instanceof CmpExpr) {
+            return Long.compare(n1, n2);
+        } else {
+            return NOT_CONSTANT;
+        }
+    }
+
+    private static Object evaluateInvoke(InvokeExpr expr, Map<Local, Object> state) {
+        SootMethodRef methodRef = expr.getMethodRef();
+        String className = methodRef.getDeclaringClass().getName();
+        String methodName = methodRef.getName();
+
+        ArrayList<Object> args = new ArrayList<>();
+        List<Value> argValues = expr.getArgs();
+        for (Value v : argValues) {
+            Object arg = evaluate(v, state);
+            if (arg == null) {
+                return null;
+            }
+
+            if (!isConstant(arg)) {
+                return NOT_CONSTANT;
+            }
+
+            args.add(arg);
+        }
+
+        if (expr instanceof InstanceInvokeExpr) {
+            Object base = evaluate(((InstanceInvokeExpr) expr).getBase(), state);
+            if (base == null) {
+                return null;
+            }
+
+            return (base instanceof String && className.equals("java.lang.String")) ? evaluateStringMethod((String) base, methodRef, args) : NOT_CONSTANT;
+        }
+
+        try {
+            if (className.equals("java.lang.String") && methodName.equals("valueOf") && args.size() == 1) {
+                Object arg = args.get(0);
+                Type paramType = methodRef.getParameterType(0);
+                if (paramType instanceof CharType) {
+                    return String.valueOf((char) (int) (Integer) arg);
+                } else if (paramType instanceof BooleanType) {
+                    return String.valueOf((Integer) arg != 0);
+                } else if (arg instanceof Integer || arg instanceof Long || arg instanceof String) {
+                    return String.valueOf(arg);
+                }
+            } else if (className.equals("java.lang.Integer") && methodName.equals("parseInt") && args.size() == 1) {
+                return Integer.parseInt((String) args.get(0));
+            } else if (className.equals("java.lang.Long") && methodName.equals("parseLong") && args.size() == 1) {
+                return Long.parseLong((String) args.get(0));
+            }
+        } catch (RuntimeException ignored) { // for malformed numbers and mismatched argument types
+            return NOT_CONSTANT;
+        }
+
+        return NOT_CONSTANT;
+    }
+
+    private static Object evaluateStringMethod(String base, SootMethodRef methodRef, ArrayList<Object> args) {
+        String methodName = methodRef.getName();
+        int argCount = args.size();
+
+        try {
+            switch (methodName) {
+                case "length":
+                    return base.length();
+
+                case "isEmpty":
+                    return base.isEmpty() ? 1 : 0;
+
+                case "toString":
+                case "intern":
+                    return base;
+
+                case "trim":
+                    return base.trim();
+
+                case "toUpperCase":
+                    return (argCount == 0) ? base.toUpperCase(Locale.ROOT) : NOT_CONSTANT;
+
+                case "toLowerCase":
+                    return (argCount == 0) ? base.toLowerCase(Locale.ROOT) : NOT_CONSTANT;
+
+                case "concat":
+                    return base.concat((String) args.get(0));
+
+                case "equals":
+                    return base.equals(args.get(0)) ? 1 : 0;
+
+                case "charAt":
+                    return (int) base.charAt((Integer) args.get(0));
+
+                case "indexOf": {
+                    if (argCount != 1) {
+                        return NOT_CONSTANT;
+                    }
+
+                    Object arg = args.get(0);
+                    return (arg instanceof String) ? base.indexOf((String) arg) : base.indexOf((Integer) arg);
+                }
+
+                case "substring":
+                    return (argCount == 1) ? base.substring((Integer) args.get(0)) : base.substring((Integer) args.get(0), (Integer) args.get(1));
+
+                case "replace": {
+                    Object arg1 = args.get(0);
+                    Object arg2 = args.get(1);
+                    if (arg1 instanceof Integer) {
+                        return base.replace((char) (int) (Integer) arg1, (char) (int) (Integer) arg2);
+                    }
+
+                    return base.replace((String) arg1, (String) arg2);
+                }
+
+                case "getBytes":
+                    return (argCount == 0) ? base.getBytes(StandardCharsets.UTF_8) : base.getBytes((String) args.get(0));
+
+                default:
+                    return NOT_CONSTANT;
+            }
+        } catch (RuntimeException | UnsupportedEncodingException ignored) { // for out of range indices and unknown charsets
+            return NOT_CONSTANT;
+        }
+    }
+
+    private static Object evaluateStringInit(InvokeExpr expr, Map<Local, Object> state) {
+        int argCount = expr.getArgCount();
+        if (argCount == 0) {
+            return "";
+        }
+
+        Object arg = evaluate(expr.getArg(0), state);
+        if (argCount != 1 || !isConstant(arg)) {
+            return NOT_CONSTANT;
+        }
+
+        if (arg instanceof byte[]) {
+            return new String((byte[]) arg, StandardCharsets.UTF_8);
+        }
+
+        return (arg instanceof String) ? arg : NOT_CONSTANT;
+    }
+
+    private static boolean isConstant(Object value) {
+        return value != null && value != NOT_CONSTANT;
+    }
+
+    private static boolean isEqual(Object value1, Object value2) {
+        if (value1 instanceof byte[] && value2 instanceof byte[]) {
+            return Arrays.equals((byte[]) value1, (byte[]) value2);
+        }
+
+        return Objects.equals(value1, value2);
+    }
+
+    private static boolean isCaughtException(Unit unit) {
+        return unit instanceof IdentityStmt && ((IdentityStmt) unit).getRightOp() instanceof CaughtExceptionRef;
+    }
+
+    public static class Result {
+        private final ArrayList<Unit> unreachableUnits;
+        private final HashSet<Unit> unreachableUnitSet;
+        private final HashMap<Unit, HashMap<Value, Object>> usedConstantMap;
+        private final HashMap<Unit, Object> assignedConstantMap;
+        private long generation;
+
+        private Result(ArrayList<Unit> wholeUnit, HashMap<Unit, HashMap<Local, Object>> inStateMap) {
+            unreachableUnits = new ArrayList<>();
+            unreachableUnitSet = new HashSet<>();
+            usedConstantMap = new HashMap<>();
+            assignedConstantMap = new HashMap<>();
+
+            for (Unit u : wholeUnit) { // for only the constants each unit reads or writes
+                HashMap<Local, Object> state = inStateMap.get(u);
+                if (state == null) {
+                    unreachableUnits.add(u);
+                    unreachableUnitSet.add(u);
+                    continue;
+                }
+
+                List<ValueBox> boxes = u.getUseBoxes();
+                for (ValueBox b : boxes) {
+                    Value value = b.getValue();
+                    Object constant = state.get(value);
+                    if (value instanceof Local && isConstant(constant)) {
+                        HashMap<Value, Object> constantMap = usedConstantMap.computeIfAbsent(u, k -> new HashMap<>());
+                        constantMap.put(value, constant);
+                    }
+                }
+
+                if (u instanceof AssignStmt && ((AssignStmt) u).getLeftOp() instanceof Local) {
+                    Object constant = evaluate(((AssignStmt) u).getRightOp(), state);
+                    if (isConstant(constant)) {
+                        assignedConstantMap.put(u, constant);
+                    }
+                }
+            }
+        }
+
+        public boolean isReachable(Unit unit) {
+            return !unreachableUnitSet.contains(unit);
+        }
+
+        public ArrayList<Unit> getUnreachableUnits() {
+            return new ArrayList<>(unreachableUnits);
+        }
+
+        public Object getConstant(Unit unit, Value value) {
+            if (value instanceof Constant) {
+                Object constant = evaluate(value, new HashMap<>());
+
+                return isConstant(constant) ? constant : null;
+            }
+
+            HashMap<Value, Object> constantMap = usedConstantMap.get(unit);
+
+            return (constantMap == null) ? null : constantMap.get(value);
+        }
+
+        public Object getAssignedConstant(Unit unit) {
+            return assignedConstantMap.get(unit);
+        }
+    }
+
+    private static class Holder {
+        private static final ConstantPropagator instance = new ConstantPropagator();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.ccadroid.slice;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class HeapSliceContent extends SliceContent {
+    private final SliceLine[] lines;
+
+    public HeapSliceContent(List<SliceLine> lines) {
+        this.lines = lines.toArray(new SliceLine[0]);
+    }
+
+    @Override
+    public int size() {
+        return lines.length;
+    }
+
+    @Override
+    public SliceLine get(int index) {
+        return lines[index];
+    }
+
+    @Override
+    public List<SliceLine> getLines() {
+        return Collections.unmodifiableList(Arrays.asList(lines));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.ccadroid.slice;
+
+public class MappedSliceContent extends SliceContent {
+    private final MappedSliceStore sliceStore;
+    private final int segmentIndex;
+    private final int start;
+    private final int count;
+
+    public MappedSliceContent(MappedSliceStore sliceStore, int segmentIndex, int start, int count) {
+        this.sliceStore = sliceStore;
+        this.segmentIndex = segmentIndex;
+        this.start = start;
+        this.count = count;
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public SliceLine get(int index) {
+        return sliceStore.getLine(segmentIndex, start, index);
+    }
+
+    @Override
+    public SliceLine newCursor() {
+        return new MappedSliceLine(sliceStore, segmentIndex, 0);
+    }
+
+    @Override
+    public SliceLine get(int index, SliceLine cursor) {
+        MappedSliceLine line = (MappedSliceLine) cursor;
+        line.moveTo(segmentIndex, sliceStore.getLineOffset(segmentIndex, start, index));
+
+        return line;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.util.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.ccadroid.slice.MappedSliceStore.*;
+
+public class MappedSliceLine extends SliceLine {
+    private final MappedSliceStore sliceStore;
+    private int segmentIndex;
+    private int offset;
+
+    protected MappedSliceLine(MappedSliceStore sliceStore, int segmentIndex, int offset) {
+        this.sliceStore = sliceStore;
+        this.segmentIndex = segmentIndex;
+        this.offset = offset;
+    }
+
+    @Override
+    public int getUnitStringId() {
+        return sliceStore.getInt(segmentIndex, offset + UNIT_STRING_OFFSET);
+    }
+
+    @Override
+    public void setUnitString(String unitStr) { // for updates visible to every slice sharing this line
+        SymbolTable symbolTable = SymbolTable.getInstance();
+        sliceStore.putInt(segmentIndex, offset + UNIT_STRING_OFFSET, symbolTable.getId(unitStr));
+    }
+
+    @Override
+    public int getUnitType() {
+        return sliceStore.getInt(segmentIndex, offset + UNIT_TYPE_OFFSET);
+    }
+
+    @Override
+    public int getCallerId() {
+        return sliceStore.getInt(segmentIndex, offset + CALLER_OFFSET);
+    }
+
+    @Override
+    public int getLineNumber() {
+        return sliceStore.getInt(segmentIndex, offset + LINE_NUMBER_OFFSET);
+    }
+
+    @Override
+    public List<String> getConstants() {
+        int constantCount = getConstantCount();
+        if (constantCount == 0) {
+            return Collections.emptyList();
+        }
+
+        SymbolTable symbolTable = SymbolTable.getInstance();
+        ArrayList<String> constants = new ArrayList<>(constantCount);
+        for (int i = 0; i < constantCount; i++) {
+            constants.add(symbolTable.getSymbol(getConstantId(i)));
+        }
+
+        return constants;
+    }
+
+    @Override
+    public void setConstants(List<String> constants) {
+        sliceStore.writeConstants(segmentIndex, offset, (constants == null) ? Collections.emptyList() : constants);
+    }
+
+    @Override
+    protected int getConstantCount() {
+        return sliceStore.getInt(segmentIndex, offset + CONSTANT_COUNT_OFFSET);
+    }
+
+    @Override
+    protected int getConstantId(int index) {
+        int constantSegmentIndex = sliceStore.getInt(segmentIndex, offset + CONSTANT_SEGMENT_OFFSET);
+        int constantOffset = sliceStore.getInt(segmentIndex, offset + CONSTANT_OFFSET);
+
+        return sliceStore.getInt(constantSegmentIndex, constantOffset + index * Integer.BYTES);
+    }
+
+    protected void moveTo(int segmentIndex, int offset) {
+        this.segmentIndex = segmentIndex;
+        this.offset = offset;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.util.SymbolTable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+public class MappedSliceStore {
+    private static final int SEGMENT_SIZE = 64 << 20;
+    protected static final int CALLER_OFFSET = 0;
+    protected static final int UNIT_STRING_OFFSET = 4;
+    protected static final int UNIT_TYPE_OFFSET = 8;
+    protected static final int LINE_NUMBER_OFFSET = 12;
+    protected static final int CONSTANT_COUNT_OFFSET = 16;
+    protected static final int CONSTANT_SEGMENT_OFFSET = 20;
+    protected static final int CONSTANT_OFFSET = 24;
+    private static final int LINE_SIZE = 7 * Integer.BYTES;
+    private final SymbolTable symbolTable;
+    private final FileChannel channel;
+    private final ArrayList<MappedByteBuffer> segments;
+    private long mappedSize;
+    private int position;
+
+    public MappedSliceStore(Path path) throws IOException {
+        symbolTable = SymbolTable.getInstance();
+        channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE, DELETE_ON_CLOSE);
+        segments = new ArrayList<>();
+    }
+
+    public MappedSliceContent append(List<SliceLine> lines) {
+        int count = lines.size();
+        int recordSize = count * Integer.BYTES; // for the offset table
+        for (SliceLine l : lines) {
+            recordSize += LINE_SIZE + l.getConstants().size() * Integer.BYTES;
+        }
+
+        try {
+            reserve(recordSize);
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot map slice store segment!");
+            return null;
+        }
+
+        int segmentIndex = segments.size() - 1;
+        MappedByteBuffer segment = segments.get(segmentIndex);
+        int start = position;
+        int offset = start + count * Integer.BYTES;
+        for (int i = 0; i < count; i++) {
+            SliceLine line = lines.get(i);
+            List<String> constants = line.getConstants();
+
+            segment.putInt(start + i * Integer.BYTES, offset);
+            segment.putInt(offset + CALLER_OFFSET, line.getCallerId());
+            segment.putInt(offset + UNIT_STRING_OFFSET, line.getUnitStringId());
+            segment.putInt(offset + UNIT_TYPE_OFFSET, line.getUnitType());
+            segment.putInt(offset + LINE_NUMBER_OFFSET, line.getLineNumber());
+            segment.putInt(offset + CONSTANT_COUNT_OFFSET, constants.size());
+            segment.putInt(offset + CONSTANT_SEGMENT_OFFSET, segmentIndex);
+            segment.putInt(offset + CONSTANT_OFFSET, offset + LINE_SIZE);
+            offset += LINE_SIZE;
+
+            for (String c : constants) {
+                segment.putInt(offset, symbolTable.getId(c));
+                offset += Integer.BYTES;
+            }
+        }
+
+        position = offset;
+
+        return new MappedSliceContent(this, segmentIndex, start, count);
+    }
+
+    public void close() {
+        segments.clear();
+
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot close slice store!");
+        }
+    }
+
+    protected MappedSliceLine getLine(int segmentIndex, int start, int index) {
+        return new MappedSliceLine(this, segmentIndex, getLineOffset(segmentIndex, start, index));
+    }
+
+    protected int getLineOffset(int segmentIndex, int start, int index) {
+        return getInt(segmentIndex, start + index * Integer.BYTES);
+    }
+
+    protected int getInt(int segmentIndex, int offset) {
+        MappedByteBuffer segment = segments.get(segmentIndex);
+
+        return segment.getInt(offset);
+    }
+
+    protected void putInt(int segmentIndex, int offset, int value) {
+        MappedByteBuffer segment = segments.get(segmentIndex);
+        segment.putInt(offset, value);
+    }
+
+    protected void writeConstants(int segmentIndex, int offset, List<String> constants) {
+        int count = constants.size();
+        int constantSegmentIndex;
+        int constantOffset;
+        if (count <= getInt(segmentIndex, offset + CONSTANT_COUNT_OFFSET)) { // for constants fitting the old block
+            constantSegmentIndex = getInt(segmentIndex, offset + CONSTANT_SEGMENT_OFFSET);
+            constantOffset = getInt(segmentIndex, offset + CONSTANT_OFFSET);
+        } else {
+            try {
+                reserve(count * Integer.BYTES);
+            } catch (IOException ignored) {
+                System.out.println("[*] ERROR : Cannot map slice store segment!");
+                return;
+            }
+
+            constantSegmentIndex = segments.size() - 1;
+            constantOffset = position;
+            position += count * Integer.BYTES;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int constantId = symbolTable.getId(constants.get(i));
+            putInt(constantSegmentIndex, constantOffset + i * Integer.BYTES, constantId);
+        }
+
+        putInt(segmentIndex, offset + CONSTANT_SEGMENT_OFFSET, constantSegmentIndex);
+        putInt(segmentIndex, offset + CONSTANT_OFFSET, constantOffset);
+        putInt(segmentIndex, offset + CONSTANT_COUNT_OFFSET, count);
+    }
+
+    private void reserve(int recordSize) throws IOException {
+        if (!segments.isEmpty() && position + recordSize <= segments.get(segments.size() - 1).capacity()) {
+            return;
+        }
+
+        int segmentSize = Math.max(SEGMENT_SIZE, recordSize); // for records larger than a segment
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, mappedSize, segmentSize);
+        segments.add(segment);
+        mappedSize += segmentSize;
+        position = 0;
+    }
+}
\ No newline at end of file
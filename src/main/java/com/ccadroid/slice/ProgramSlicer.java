@@ -1,12 +1,14 @@
 package com.ccadroid.slice;
 
+import com.ccadroid.inspect.ClassClassifier;
 import com.ccadroid.inspect.CodeInspector;
 import com.ccadroid.inspect.SlicingCriteriaGenerator;
 import com.ccadroid.inspect.SlicingCriterion;
+import com.ccadroid.util.Budget;
 import com.ccadroid.util.Configuration;
+import com.ccadroid.util.Metrics;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import soot.Unit;
 import soot.Value;
@@ -25,14 +27,17 @@ import static com.ccadroid.util.soot.SootUnit.*;
 public class ProgramSlicer {
     private static final int UPPER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.upperLevel"));
     private static final int LOWER_LEVEL = Integer.parseInt(Configuration.getProperty("slice.lowerLevel"));
+    private static final SliceWorklist.Policy POLICY = SliceWorklist.Policy.valueOf(Configuration.getProperty("slice.worklistPolicy").toUpperCase());
     private final CodeInspector codeInspector;
     private final SlicingCriteriaGenerator slicingCriteriaGenerator;
     private final SliceOptimizer sliceOptimizer;
     private final SliceDatabase sliceDatabase;
     private final SliceMerger sliceMerger;
-    private final Deque<SlicingCriterion> deque;
+    private final SliceWorklist worklist;
+    private final HashMap<SlicingCriterion, Integer> hopsMap;
     private final HashMap<String, ArrayList<Unit>> unitsMap;
     private final HashMap<Unit, HashSet<SlicingCriterion>> tempSlicingCriteriaMap;
+    private int currentHops;
 
     public ProgramSlicer() {
         codeInspector = CodeInspector.getInstance();
@@ -41,7 +46,8 @@ public class ProgramSlicer {
         sliceDatabase = SliceDatabase.getInstance();
         sliceMerger = SliceMerger.getInstance();
 
-        deque = new LinkedList<>();
+        worklist = new SliceWorklist();
+        hopsMap = new HashMap<>();
         unitsMap = new HashMap<>();
         tempSlicingCriteriaMap = new HashMap<>();
     }
@@ -54,15 +60,25 @@ public class ProgramSlicer {
         String leafId = String.valueOf(slicingCriterion.hashCode());
         sliceMerger.addNode(leafId, leafId, 0);
 
-        deque.add(slicingCriterion);
+        worklist.clear();
+        hopsMap.clear();
+        currentHops = -1;
+        addSlicingCriterion(slicingCriterion, 0);
 
-        while (!deque.isEmpty()) {
-            SlicingCriterion sc = deque.poll();
+        Budget budget = Budget.getInstance();
+        while (!worklist.isEmpty()) {
+            if (budget.isExceeded() && !budget.degrade()) {
+                worklist.clear();
+                break;
+            }
+
+            SlicingCriterion sc = worklist.poll();
+            currentHops = hopsMap.getOrDefault(sc, 0);
             sliceStatement(sc);
         }
     }
 
-    public JSONArray getConstants(Unit unit, int unitType) {
+    public ArrayList<String> getConstants(Unit unit, int unitType) {
         ArrayList<String> constants = new ArrayList<>();
 
         if ((unitType & INVOKE) == INVOKE) {
@@ -70,23 +86,23 @@ public class ProgramSlicer {
             String className = getClassName(signature);
             String methodName = getMethodName(signature);
             if (className.equals("java.util.Objects") && methodName.equals("requireNonNull")) {
-                return new JSONArray(constants);
+                return constants;
             }
 
             if (className.equals("java.lang.String") && (methodName.equals("getBytes") || methodName.equals("format"))) {
-                return new JSONArray(constants);
+                return constants;
             }
 
             if (className.equals("java.lang.System") && methodName.equals("arraycopy")) {
-                return new JSONArray(constants);
+                return constants;
             }
 
             if (className.equals("java.util.Arrays") && methodName.equals("copyOfRange")) {
-                return new JSONArray(constants);
+                return constants;
             }
 
             if (className.startsWith("android")) {
-                return new JSONArray(constants);
+                return constants;
             }
 
             ArrayList<String> paramTypes = getParamTypes(signature);
@@ -120,7 +136,7 @@ public class ProgramSlicer {
             }
         }
 
-        return new JSONArray(constants);
+        return constants;
     }
 
     public ArrayList<Unit> getUnits(String nodeId) {
@@ -129,9 +145,8 @@ public class ProgramSlicer {
 
     private void sliceStatement(SlicingCriterion slicingCriterion) {
         String nodeId = String.valueOf(slicingCriterion.hashCode());
-        List<String> query = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s!=null", CALLER_NAME));
-        JSONObject slice = sliceDatabase.selectOne(query);
-        if (slice != null) {
+        HashMap<String, JSONObject> sliceMap = sliceDatabase.selectByNodeIds(List.of(nodeId));
+        if (sliceMap.containsKey(nodeId)) {
             return;
         }
 
@@ -140,14 +155,20 @@ public class ProgramSlicer {
         String callerName = slicingCriterion.getCallerName();
         String targetStatement = slicingCriterion.getTargetStatement();
         int startUnitIndex = slicingCriterion.getTargetUnitIndex();
-        ArrayList<Value> startTargetVariables = slicingCriterion.getTargetVariables();
 
         ArrayList<Unit> wholeUnit = codeInspector.getWholeUnit(callerName);
+        codeInspector.pinBody(callerName);
+
         ArrayList<Unit> reversedUnits = new ArrayList<>(wholeUnit);
         Collections.reverse(reversedUnits);
 
         int wholeUnitCount = wholeUnit.size();
         Unit startUnit = reversedUnits.get(startUnitIndex);
+        ArrayList<Value> startTargetVariables = getTargetVariables(startUnit, slicingCriterion);
+        if (startTargetVariables == null) {
+            System.out.println("[*] ERROR : Cannot resolve target variables: " + slicingCriterion);
+            return;
+        }
         int startUnitType = getUnitType(startUnit);
         int startLineNum = wholeUnitCount - startUnitIndex;
         String startUnitPattern = ((startUnitType & INVOKE) == INVOKE) ? getSignature(startUnit) : ((startUnitType & RETURN) == RETURN) ? "return" : startUnit.toString();
@@ -159,7 +180,7 @@ public class ProgramSlicer {
 
         ArrayList<Unit> units = new ArrayList<>();
         units.add(startUnit);
-        ArrayList<JSONObject> content = new ArrayList<>();
+        ArrayList<SliceLine> content = new ArrayList<>();
         addLine(startUnit, startUnitType, callerName, startLineNum, content);
 
         for (int i = startUnitIndex + 1; i < wholeUnitCount; i++) {
@@ -422,10 +443,10 @@ public class ProgramSlicer {
             addLine(unit, unitType, callerName, lineNum, content);
         }
 
-        ArrayList<Unit> unreachables = sliceOptimizer.getUnreachableUnits(wholeUnit, units);
+        ArrayList<Unit> unreachables = sliceOptimizer.getUnreachableUnits(callerName);
         units.removeAll(unreachables);
 
-        HashMap<Unit, Unit> updates = sliceOptimizer.getInterpretedUnits(units, new HashMap<>());
+        HashMap<Unit, Unit> updates = sliceOptimizer.getInterpretedUnits(callerName, units);
         sliceOptimizer.updateLines(updates, content);
         unitsMap.put(nodeId, units);
 
@@ -439,6 +460,38 @@ public class ProgramSlicer {
 
         ArrayList<String> relatedNodeIds = sliceMerger.getRelatedNodeIds(nodeId);
         sliceDatabase.insert(nodeId, relatedNodeIds, callerName, targetStatement, startUnitIndex, targetParamNumbers, convertToStrings(startTargetVariables), content);
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.increment("slicesProduced");
+        metrics.record("sliceLength", content.size());
+    }
+
+    private ArrayList<Value> getTargetVariables(Unit startUnit, SlicingCriterion slicingCriterion) { // for the locals of a pinned, possibly rebuilt body
+        ArrayList<Value> targetVariables = slicingCriterion.getTargetVariables();
+        ArrayList<Integer> targetValueBoxIndexes = slicingCriterion.getTargetValueBoxIndexes();
+        if (targetValueBoxIndexes == null) {
+            return targetVariables;
+        }
+
+        List<ValueBox> valueBoxes = startUnit.getUseBoxes();
+        ArrayList<Value> values = new ArrayList<>();
+        int targetVariableCount = targetVariables.size();
+        for (int i = 0; i < targetVariableCount; i++) {
+            Value targetVariable = targetVariables.get(i);
+            int index = targetValueBoxIndexes.get(i);
+            if (index >= valueBoxes.size()) {
+                return null;
+            }
+
+            Value value = valueBoxes.get(index).getValue();
+            if (!value.getType().equals(targetVariable.getType()) || !value.toString().equals(targetVariable.toString())) {
+                return null;
+            }
+
+            values.add(value);
+        }
+
+        return values;
     }
 
     private int getSwitchUnitIndex(Unit unit, Set<Map.Entry<Integer, ArrayList<Unit>>> switchTargetUnitSet) {
@@ -491,7 +544,8 @@ public class ProgramSlicer {
 
     private void handleInvokeUnit(Unit unit, Node parent, String calleeName) {
         int level = (int) parent.getAttribute(LEVEL);
-        if (level == LOWER_LEVEL) {
+        Budget budget = Budget.getInstance();
+        if (level <= budget.getLowerLevel(LOWER_LEVEL)) {
             return;
         } else {
             level--;
@@ -500,6 +554,13 @@ public class ProgramSlicer {
         ArrayList<SlicingCriterion> slicingCriteria;
         ArrayList<Integer> targetParamNumbers = new ArrayList<>();
 
+        String className = getClassName(calleeName);
+        ClassClassifier classClassifier = ClassClassifier.getInstance();
+        if (classClassifier.isFramework(className)) { // for callees without bodies in the APK
+            tempSlicingCriteriaMap.put(unit, new HashSet<>());
+            return;
+        }
+
         int unitType = getUnitType(unit);
         if ((unitType & ASSIGN) == ASSIGN) { // for ASSIGN_INVOKE_UNIT
             slicingCriteria = slicingCriteriaGenerator.createSlicingCriteria(calleeName, "return", RETURN_VALUE, targetParamNumbers);
@@ -566,13 +627,13 @@ public class ProgramSlicer {
         tempSlicingCriteriaMap.put(unit, tempSlicingCriteria);
     }
 
-    private boolean startsWithValueStr(ArrayList<JSONObject> contents, String valueStr) {
+    private boolean startsWithValueStr(ArrayList<SliceLine> contents, String valueStr) {
         int contentSize = contents.size();
 
         for (int i = 0; i < contentSize - 1; i++) {
-            JSONObject line = contents.get(i);
-            String unitStr = line.getString(UNIT_STRING);
-            int unitType = line.getInt(UNIT_TYPE);
+            SliceLine line = contents.get(i);
+            String unitStr = line.getUnitString();
+            int unitType = line.getUnitType();
             if (unitStr.startsWith(valueStr) && (unitType == ASSIGN_VARIABLE_SIGNATURE || (unitType & ASSIGN_INVOKE) == ASSIGN_INVOKE)) {
                 return true;
             } else if (unitStr.contains(valueStr) && unitType == IF) {
@@ -589,7 +650,8 @@ public class ProgramSlicer {
         }
 
         int level = (int) child.getAttribute(LEVEL);
-        if (level == UPPER_LEVEL) {
+        Budget budget = Budget.getInstance();
+        if (level >= budget.getUpperLevel(UPPER_LEVEL)) {
             return;
         } else {
             level++;
@@ -607,29 +669,19 @@ public class ProgramSlicer {
                 String parentId = String.valueOf(sc.hashCode());
                 Node parent = sliceMerger.addNode(parentId, parentId, level);
                 sliceMerger.addEdge(child, parent, UPWARD);
-                deque.add(sc);
+                addSlicingCriterion(sc, level);
             }
         }
     }
 
-    private void addLine(Unit unit, int unitType, String callerName, int lineNum, ArrayList<JSONObject> slice) {
+    private void addLine(Unit unit, int unitType, String callerName, int lineNum, ArrayList<SliceLine> slice) {
         String unitStr = unit.toString();
-
-        JSONObject line = new JSONObject();
-        line.put(UNIT_STRING, unitStr);
-        line.put(UNIT_TYPE, unitType);
-        line.put(CALLER_NAME, callerName);
-        line.put(LINE_NUMBER, lineNum);
+        ArrayList<String> constants = null;
         if ((unitType & INVOKE) == INVOKE || unitType == ASSIGN_VARIABLE_CONSTANT || unitType == ASSIGN_SIGNATURE_CONSTANT || unitType == RETURN_VALUE) {
-            JSONArray constants = getConstants(unit, unitType);
-            if (!constants.isEmpty()) {
-                line.put(CONSTANTS, constants);
-            }
-        } else if (unitType == NEW_ARRAY) {
-            String size = getArraySize(unit, unitType);
-            line.put(ARRAY_SIZE, size);
+            constants = getConstants(unit, unitType);
         }
 
+        SliceLine line = new SliceLine(unitStr, unitType, callerName, lineNum, constants);
         slice.add(0, line);
     }
 
@@ -640,7 +692,7 @@ public class ProgramSlicer {
                 continue;
             }
 
-            deque.removeAll(tempSlicingCriteria);
+            worklist.removeAll(tempSlicingCriteria);
         }
     }
 
@@ -651,7 +703,40 @@ public class ProgramSlicer {
                 continue;
             }
 
-            deque.addAll(tempSlicingCriteria);
+            for (SlicingCriterion sc : tempSlicingCriteria) {
+                String nodeId = String.valueOf(sc.hashCode());
+                Node node = sliceMerger.getNode(nodeId);
+                int level = (node == null) ? 0 : (int) node.getAttribute(LEVEL);
+                addSlicingCriterion(sc, level);
+            }
+        }
+    }
+
+    private void addSlicingCriterion(SlicingCriterion slicingCriterion, int level) {
+        int hops = currentHops + 1;
+        int priority;
+        switch (POLICY) {
+            case LEVEL: { // for shallowest level first
+                priority = Math.abs(level);
+                break;
+            }
+
+            case HOPS: { // for nearest to the target statement first
+                priority = hops;
+                break;
+            }
+
+            default: {
+                priority = 0;
+                break;
+            }
+        }
+
+        if (worklist.add(slicingCriterion, priority)) {
+            hopsMap.putIfAbsent(slicingCriterion, hops);
+        } else {
+            Metrics metrics = Metrics.getInstance();
+            metrics.increment("worklistDuplicates");
         }
     }
 
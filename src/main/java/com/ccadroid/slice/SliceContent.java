@@ -0,0 +1,82 @@
+package com.ccadroid.slice;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public abstract class SliceContent implements Iterable<SliceLine> {
+
+    public abstract int size();
+
+    public abstract SliceLine get(int index);
+
+    public SliceLine newCursor() {
+        return null;
+    }
+
+    public SliceLine get(int index, SliceLine cursor) { // for read-only scans; the line is only valid until the next call
+        return get(index);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public List<SliceLine> getLines() {
+        return new AbstractList<>() {
+            @Override
+            public SliceLine get(int index) {
+                return SliceContent.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return SliceContent.this.size();
+            }
+        };
+    }
+
+    public long[] getFingerprints() {
+        int size = size();
+        long[] fingerprints = new long[size];
+        SliceLine cursor = newCursor();
+        for (int i = 0; i < size; i++) {
+            SliceLine line = get(i, cursor);
+            fingerprints[i] = line.getFingerprint();
+        }
+
+        Arrays.sort(fingerprints);
+
+        int count = 0;
+        for (int i = 0; i < size; i++) { // for distinct lines
+            if (count == 0 || fingerprints[count - 1] != fingerprints[i]) {
+                fingerprints[count++] = fingerprints[i];
+            }
+        }
+
+        return Arrays.copyOf(fingerprints, count);
+    }
+
+    @Override
+    public Iterator<SliceLine> iterator() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public SliceLine next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return get(index++);
+            }
+        };
+    }
+}
\ No newline at end of file
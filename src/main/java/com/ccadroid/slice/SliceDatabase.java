@@ -1,14 +1,33 @@
 package com.ccadroid.slice;
 
+import com.ccadroid.slice.SliceQuery.Condition;
+import com.ccadroid.slice.SliceQuery.Operator;
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.Metrics;
+import com.ccadroid.util.SymbolTable;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Predicate;
 
 import static com.ccadroid.slice.SliceConstants.*;
 
 public class SliceDatabase {
+    private static final String STORE = Configuration.getProperty("slice.store");
+    private static final ThreadLocal<ArrayDeque<Object>> VALUE_STACK = ThreadLocal.withInitial(ArrayDeque::new);
+    private final SymbolTable symbolTable;
     private HashMap<Integer, JSONObject> collection;
+    private HashMap<String, ArrayList<JSONObject>> nodeIdIndex;
+    private HashMap<String, ArrayList<JSONObject>> callerNameIndex;
+    private MappedSliceStore sliceStore;
+
+    public SliceDatabase() {
+        symbolTable = SymbolTable.getInstance();
+    }
 
     public static SliceDatabase getInstance() {
         return SliceDatabase.Holder.instance;
@@ -16,70 +35,215 @@ public class SliceDatabase {
 
     public void initialize() {
         collection = new HashMap<>();
+        nodeIdIndex = new HashMap<>();
+        callerNameIndex = new HashMap<>();
+
+        if (sliceStore != null) {
+            sliceStore.close();
+            sliceStore = null;
+        }
+
+        if (STORE.equals("mapped")) { // for off-heap slice content
+            Path path = Paths.get(Configuration.getProperty("slice.storePath"));
+
+            try {
+                sliceStore = new MappedSliceStore(path);
+            } catch (IOException ignored) {
+                System.out.println("[*] ERROR : Cannot create slice store: " + path);
+            }
+        }
     }
 
-    public void insert(String nodeId, ArrayList<String> relatedNodeIds, String callerName, String targetStatement, int startUnitIndex, ArrayList<Integer> targetParamNumbers, ArrayList<String> targetVariables, ArrayList<JSONObject> content) {
+    public void insert(String nodeId, ArrayList<String> relatedNodeIds, String callerName, String targetStatement, int startUnitIndex, ArrayList<Integer> targetParamNumbers, ArrayList<String> targetVariables, List<SliceLine> content) {
         JSONObject object = new JSONObject();
-        object.put(NODE_ID, nodeId);
+        object.put(NODE_ID, symbolTable.intern(nodeId));
         object.put(RELATED_NODE_IDS, relatedNodeIds);
-        object.put(CALLER_NAME, callerName);
-        object.put(TARGET_STATEMENT, targetStatement);
+        object.put(CALLER_NAME, symbolTable.intern(callerName));
+        object.put(TARGET_STATEMENT, symbolTable.intern(targetStatement));
         object.put(TARGET_PARAM_NUMBERS, targetParamNumbers);
         object.put(START_UNIT_INDEX, startUnitIndex);
         object.put(TARGET_VARIABLES, targetVariables);
-        object.put(CONTENT, content);
+        object.put(CONTENT, createContent(content));
 
         collection.put(object.hashCode(), object);
+        addIndex(object);
     }
 
-    public void insert(String nodeId, String targetStatement, ArrayList<Integer> targetParamNumbers, ArrayList<String> targetVariables, ArrayList<JSONObject> content) {
+    public void insert(String nodeId, String targetStatement, ArrayList<Integer> targetParamNumbers, ArrayList<String> targetVariables, List<SliceLine> content) {
         JSONObject object = new JSONObject();
-        object.put(NODE_ID, nodeId);
-        object.put(TARGET_STATEMENT, targetStatement);
+        object.put(NODE_ID, symbolTable.intern(nodeId));
+        object.put(TARGET_STATEMENT, symbolTable.intern(targetStatement));
         object.put(TARGET_PARAM_NUMBERS, targetParamNumbers);
         object.put(TARGET_VARIABLES, targetVariables);
-        object.put(CONTENT, content);
+        object.put(CONTENT, createContent(content));
 
         collection.put(object.hashCode(), object);
+        addIndex(object);
     }
 
     public ArrayList<JSONObject> selectAll(List<String> query) {
-        HashSet<JSONObject> result = new HashSet<>();
+        return selectAll(SliceQuery.parse(query));
+    }
+
+    public ArrayList<JSONObject> selectAll(SliceQuery query) {
+        ArrayList<Condition> conditions = new ArrayList<>(query.getConditions());
 
-        ArrayList<JSONObject> values = new ArrayList<>(collection.values());
-        for (JSONObject o1 : values) {
+        Metrics metrics = Metrics.getInstance();
+        if (Metrics.isEnabled()) {
+            for (Condition c : conditions) {
+                Operator operator = c.getOperator();
+                metrics.increment("dbQueries." + operator.getName());
+            }
+        }
+
+        Collection<JSONObject> candidates = getCandidates(conditions);
+        conditions.sort(Comparator.comparingInt(c -> c.getOperator().getCost())); // for cheap conditions first
+
+        ArrayList<JSONObject> result = new ArrayList<>();
+        for (JSONObject o : candidates) {
             boolean flag = true;
 
-            for (String q : query) {
-                String[] arr = q.split("(==)|(!=)|( in )");
-                String k = arr[0];
-                String v = arr[1];
+            for (Condition c : conditions) {
+                if (!matches(o, c)) {
+                    flag = false;
+                    break;
+                }
+            }
 
-                if (v.equals("null")) {
-                    Object r = o1.query(k);
-                    flag &= ((q.contains("==") && r == null) || (q.contains("!=") && r != null));
-                } else if (!q.contains(" in ")) {
-                    flag &= o1.has(k) && o1.get(k).equals(v);
-                } else {
-                    boolean f = false;
-                    ArrayList<JSONObject> objects = getValuesInObject(o1, k);
-                    for (JSONObject o2 : objects) {
-                        f |= o2.has(k) && (o2.get(k) instanceof String) && o2.get(k).toString().contains(v);
+            if (flag) {
+                result.add(o);
+            }
+        }
+
+        return result;
+    }
+
+    public ArrayList<JSONObject> selectRelated(String nodeId) {
+        ArrayList<JSONObject> slices = selectMergedSlices(nodeId);
+        HashSet<JSONObject> sliceSet = new HashSet<>(slices);
+
+        HashSet<String> visitedIds = new HashSet<>();
+        visitedIds.add(nodeId);
+        ArrayDeque<String> frontier = new ArrayDeque<>();
+        frontier.add(nodeId);
+
+        while (!frontier.isEmpty()) {
+            HashMap<String, JSONObject> sliceMap = selectByNodeIds(frontier); // for one lookup per level
+            ArrayDeque<String> nextFrontier = new ArrayDeque<>();
+
+            for (String id : frontier) {
+                JSONObject slice = sliceMap.get(id);
+                if (slice == null || sliceSet.contains(slice)) {
+                    continue;
+                }
+
+                if (!id.equals(nodeId)) {
+                    slices.add(slice);
+                    sliceSet.add(slice);
+                }
+
+                JSONArray relatedNodeIds = slice.getJSONArray(RELATED_NODE_IDS);
+                if (relatedNodeIds.isEmpty()) {
+                    return slices;
+                }
+
+                for (Object o : relatedNodeIds) {
+                    String relatedNodeId = (String) o;
+                    if (visitedIds.add(relatedNodeId)) {
+                        nextFrontier.add(relatedNodeId);
                     }
+                }
+            }
+
+            frontier = nextFrontier;
+        }
+
+        return slices;
+    }
+
+    public HashMap<String, JSONObject> selectByNodeIds(Collection<String> nodeIds) {
+        HashMap<String, JSONObject> sliceMap = new HashMap<>();
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.increment("dbQueries.batch");
+
+        for (String id : nodeIds) {
+            if (sliceMap.containsKey(id)) {
+                continue;
+            }
 
-                    flag &= f;
+            ArrayList<JSONObject> slices = nodeIdIndex.getOrDefault(id, new ArrayList<>());
+            for (JSONObject o : slices) {
+                if (o.has(CALLER_NAME)) {
+                    sliceMap.put(id, o);
+                    break;
                 }
             }
+        }
 
-            if (flag) {
-                result.add(o1);
+        return sliceMap;
+    }
+
+    public ArrayList<JSONObject> selectMergedSlices(String nodeId) {
+        ArrayList<JSONObject> result = new ArrayList<>();
+
+        ArrayList<JSONObject> slices = nodeIdIndex.getOrDefault(nodeId, new ArrayList<>());
+        for (JSONObject o : slices) {
+            if (!o.has(CALLER_NAME)) {
+                result.add(o);
+            }
+        }
+
+        return result;
+    }
+
+    public HashMap<String, JSONObject> selectByCallerNames(Collection<String> callerNames) {
+        HashMap<String, JSONObject> sliceMap = new HashMap<>();
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.increment("dbQueries.batch");
+
+        for (String name : callerNames) {
+            ArrayList<JSONObject> slices = callerNameIndex.get(name);
+            if (slices != null && !slices.isEmpty()) {
+                sliceMap.putIfAbsent(name, slices.get(0));
+            }
+        }
+
+        return sliceMap;
+    }
+
+    public ArrayList<JSONObject> selectByCallerStatements(HashMap<String, HashSet<String>> targetStatementsMap) {
+        ArrayList<JSONObject> result = new ArrayList<>();
+
+        Metrics metrics = Metrics.getInstance();
+        metrics.increment("dbQueries.batch");
+
+        Set<Map.Entry<String, HashSet<String>>> entries = targetStatementsMap.entrySet();
+        for (Map.Entry<String, HashSet<String>> e : entries) {
+            String callerName = e.getKey();
+            HashSet<String> targetStatements = e.getValue();
+
+            ArrayList<JSONObject> slices = callerNameIndex.getOrDefault(callerName, new ArrayList<>());
+            for (JSONObject o : slices) {
+                if (o.has(TARGET_STATEMENT) && targetStatements.contains(o.getString(TARGET_STATEMENT))) {
+                    result.add(o);
+                }
             }
         }
 
-        return new ArrayList<>(result);
+        return result;
+    }
+
+    public SliceContent getContent(JSONObject slice) {
+        return (SliceContent) slice.get(CONTENT);
     }
 
     public JSONObject selectOne(List<String> query) {
+        return selectOne(SliceQuery.parse(query));
+    }
+
+    public JSONObject selectOne(SliceQuery query) {
         ArrayList<JSONObject> result = selectAll(query);
 
         return (result.isEmpty()) ? null : result.get(0);
@@ -95,52 +259,174 @@ public class SliceDatabase {
             String k = arr[0];
             String v = arr[1];
 
-            slice.put(k, v);
+            update(slice, k, v);
         }
+    }
+
+    public void update(JSONObject slice, String key, String value) {
+        removeIndex(slice);
+        slice.put(key, value);
 
         collection.put(slice.hashCode(), slice);
+        addIndex(slice);
     }
 
     public void delete(List<String> query) {
-        Collection<JSONObject> values = collection.values();
+        delete(SliceQuery.parse(query));
+    }
 
+    public void delete(SliceQuery query) {
         ArrayList<JSONObject> result = selectAll(query);
-        for (JSONObject o : result) {
-            values.remove(o);
+        delete(result);
+    }
+
+    public void delete(Collection<JSONObject> slices) {
+        for (JSONObject o : slices) {
+            if (collection.remove(o.hashCode()) != null) {
+                removeIndex(o);
+            }
         }
     }
 
-    private ArrayList<JSONObject> getValuesInObject(JSONObject jsonObject, String key) {
-        ArrayList<JSONObject> objects = new ArrayList<>();
+    private void addIndex(JSONObject slice) {
+        if (slice.has(NODE_ID)) {
+            String nodeId = slice.getString(NODE_ID);
+            nodeIdIndex.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(slice);
+        }
 
-        for (String k : jsonObject.keySet()) {
-            Object o = jsonObject.get(k);
-            if (k.equals(key)) {
-                objects.add(jsonObject);
+        if (slice.has(CALLER_NAME)) {
+            String callerName = slice.getString(CALLER_NAME);
+            callerNameIndex.computeIfAbsent(callerName, k -> new ArrayList<>()).add(slice);
+        }
+    }
+
+    private void removeIndex(JSONObject slice) {
+        if (slice.has(NODE_ID)) {
+            ArrayList<JSONObject> slices = nodeIdIndex.get(slice.getString(NODE_ID));
+            if (slices != null) {
+                slices.removeIf(o -> o == slice);
             }
+        }
 
-            if (o instanceof JSONObject) {
-                objects.addAll(getValuesInObject((JSONObject) o, key));
-            } else if (o instanceof JSONArray) {
-                objects.addAll(getValuesInArray((JSONArray) o, key));
+        if (slice.has(CALLER_NAME)) {
+            ArrayList<JSONObject> slices = callerNameIndex.get(slice.getString(CALLER_NAME));
+            if (slices != null) {
+                slices.removeIf(o -> o == slice);
             }
         }
+    }
+
+    private SliceContent createContent(List<SliceLine> lines) {
+        SliceContent content = (sliceStore == null) ? null : sliceStore.append(lines);
 
-        return objects;
+        return (content == null) ? new HeapSliceContent(lines) : content;
     }
 
-    private ArrayList<JSONObject> getValuesInArray(JSONArray jsonArray, String key) {
-        ArrayList<JSONObject> objects = new ArrayList<>();
+    private Collection<JSONObject> getCandidates(ArrayList<Condition> conditions) {
+        Condition indexedCondition = null;
+        ArrayList<JSONObject> candidates = null;
+
+        for (Condition c : conditions) { // for the most selective index
+            if (c.getOperator() != Operator.EQUALS) {
+                continue;
+            }
+
+            String key = c.getKey();
+            HashMap<String, ArrayList<JSONObject>> index = key.equals(NODE_ID) ? nodeIdIndex : key.equals(CALLER_NAME) ? callerNameIndex : null;
+            if (index == null) {
+                continue;
+            }
+
+            ArrayList<JSONObject> slices = index.getOrDefault(c.getValue(), new ArrayList<>());
+            if (candidates == null || slices.size() < candidates.size()) {
+                indexedCondition = c;
+                candidates = slices;
+            }
+        }
+
+        if (candidates == null) {
+            return collection.values();
+        }
+
+        conditions.remove(indexedCondition);
+
+        return candidates;
+    }
+
+    private boolean matches(JSONObject slice, Condition condition) {
+        String key = condition.getKey();
+        String value = condition.getValue();
+
+        switch (condition.getOperator()) {
+            case EQUALS:
+                return value.equals(slice.opt(key));
+
+            case NOT_EQUALS:
+                return !value.equals(slice.opt(key));
+
+            case IS_NULL:
+                return !slice.has(key);
+
+            case IS_NOT_NULL:
+                return slice.has(key);
+
+            default:
+                return !visitValues(slice, key, o -> !(o instanceof String) || !o.toString().contains(value));
+        }
+    }
+
+    private boolean visitValues(JSONObject jsonObject, String key, Predicate<Object> visitor) { // false if the visitor stopped the traversal
+        ArrayDeque<Object> stack = VALUE_STACK.get();
+        if (!stack.isEmpty()) { // for traversals started inside a visitor
+            stack = new ArrayDeque<>();
+        }
+
+        try {
+            stack.push(jsonObject);
+            while (!stack.isEmpty()) {
+                Object container = stack.pop();
+                if (container instanceof JSONObject) {
+                    JSONObject object = (JSONObject) container;
+                    for (String k : object.keySet()) {
+                        Object o = object.get(k);
+                        if (k.equals(key) && !visitor.test(o)) {
+                            return false;
+                        }
+
+                        if (o instanceof JSONObject || o instanceof JSONArray) {
+                            stack.push(o);
+                        } else if (o instanceof SliceContent && !visitValues((SliceContent) o, key, visitor)) {
+                            return false;
+                        }
+                    }
+                } else {
+                    JSONArray array = (JSONArray) container;
+                    for (Object o : array) {
+                        if (o instanceof JSONObject || o instanceof JSONArray) {
+                            stack.push(o);
+                        }
+                    }
+                }
+            }
+
+            return true;
+        } finally {
+            stack.clear();
+        }
+    }
 
-        for (Object o : jsonArray) {
-            if (o instanceof JSONArray) {
-                objects.addAll(getValuesInArray((JSONArray) o, key));
-            } else if (o instanceof JSONObject) {
-                objects.addAll(getValuesInObject((JSONObject) o, key));
+    private boolean visitValues(SliceContent content, String key, Predicate<Object> visitor) {
+        SliceLine cursor = content.newCursor();
+        int size = content.size();
+        for (int i = 0; i < size; i++) {
+            SliceLine line = content.get(i, cursor);
+            Object o = line.get(key);
+            if (o != null && !visitor.test(o)) {
+                return false;
             }
         }
 
-        return objects;
+        return true;
     }
 
     private static class Holder {
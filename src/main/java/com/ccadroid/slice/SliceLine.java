@@ -0,0 +1,179 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.util.SymbolTable;
+import com.ccadroid.util.soot.SootUnit;
+
+import java.util.*;
+
+import static com.ccadroid.slice.SliceConstants.*;
+import static com.ccadroid.util.soot.SootUnit.NEW_ARRAY;
+
+public class SliceLine {
+    private static final SymbolTable SYMBOL_TABLE = SymbolTable.getInstance();
+    private static final String[] EMPTY_CONSTANTS = new String[0];
+    private final int callerId;
+    private final int unitType;
+    private final int lineNumber;
+    private int unitStringId;
+    private String[] constants;
+
+    public SliceLine(String unitStr, int unitType, String callerName, int lineNumber, List<String> constants) {
+        this.callerId = SYMBOL_TABLE.getId(callerName);
+        this.unitType = unitType;
+        this.lineNumber = lineNumber;
+
+        setUnitString(unitStr);
+        setConstants(constants);
+    }
+
+    protected SliceLine() { // for lines whose fields live outside the heap
+        this.callerId = 0;
+        this.unitType = 0;
+        this.lineNumber = 0;
+    }
+
+    public int getUnitStringId() {
+        return unitStringId;
+    }
+
+    public String getUnitString() {
+        return SYMBOL_TABLE.getSymbol(getUnitStringId());
+    }
+
+    public void setUnitString(String unitStr) {
+        unitStringId = SYMBOL_TABLE.getId(unitStr);
+    }
+
+    public int getUnitType() {
+        return unitType;
+    }
+
+    public int getCallerId() {
+        return callerId;
+    }
+
+    public String getCallerName() {
+        return SYMBOL_TABLE.getSymbol(getCallerId());
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public boolean hasConstants() {
+        return getConstantCount() > 0;
+    }
+
+    public List<String> getConstants() {
+        return (constants == null) ? Collections.emptyList() : Arrays.asList(constants);
+    }
+
+    public void setConstants(List<String> constants) {
+        this.constants = (constants == null || constants.isEmpty()) ? null : constants.toArray(EMPTY_CONSTANTS);
+    }
+
+    public String getArraySize() {
+        int unitType = getUnitType();
+
+        return (unitType == NEW_ARRAY) ? SootUnit.getArraySize(getUnitString(), unitType) : null;
+    }
+
+    public long getFingerprint() {
+        long hash = mix(getCallerId());
+        hash = mix(hash ^ getUnitStringId());
+        hash = mix(hash ^ getUnitType());
+        hash = mix(hash ^ getLineNumber());
+
+        int constantCount = getConstantCount();
+        for (int i = 0; i < constantCount; i++) {
+            hash = mix(hash ^ getConstantId(i));
+        }
+
+        return hash;
+    }
+
+    public Object get(String key) {
+        switch (key) {
+            case UNIT_STRING:
+                return getUnitString();
+
+            case UNIT_TYPE:
+                return getUnitType();
+
+            case CALLER_NAME:
+                return getCallerName();
+
+            case LINE_NUMBER:
+                return getLineNumber();
+
+            case CONSTANTS:
+                return hasConstants() ? getConstants() : null;
+
+            case ARRAY_SIZE:
+                return getArraySize();
+
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Objects.hash(getCallerId(), getUnitStringId(), getUnitType(), getLineNumber());
+
+        int constantCount = getConstantCount();
+        for (int i = 0; i < constantCount; i++) {
+            hash = hash * 31 + getConstantId(i);
+        }
+
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof SliceLine)) { // for heap lines and mapped lines alike
+            return false;
+        } else {
+            SliceLine line = (SliceLine) obj;
+            if (getCallerId() != line.getCallerId() || getUnitStringId() != line.getUnitStringId() || getUnitType() != line.getUnitType() || getLineNumber() != line.getLineNumber()) {
+                return false;
+            }
+
+            int constantCount = getConstantCount();
+            if (constantCount != line.getConstantCount()) {
+                return false;
+            }
+
+            for (int i = 0; i < constantCount; i++) {
+                if (getConstantId(i) != line.getConstantId(i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SliceLine{caller=" + getCallerName() + ", lineNumber=" + getLineNumber() + ", unit=" + getUnitString() + "}";
+    }
+
+    protected int getConstantCount() {
+        return (constants == null) ? 0 : constants.length;
+    }
+
+    protected int getConstantId(int index) {
+        return SYMBOL_TABLE.getId(constants[index]);
+    }
+
+    private static long mix(long value) { // for the SplitMix64 finalizer
+        long z = value + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
@@ -1,17 +1,20 @@
 package com.ccadroid.slice;
 
 import com.ccadroid.inspect.SlicingCriterion;
+import com.ccadroid.util.Metrics;
 import com.ccadroid.util.graph.BaseGraph.EdgeType;
 import com.ccadroid.util.graph.CallGraph;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
-import org.json.JSONArray;
 import org.json.JSONObject;
 import soot.Unit;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import static com.ccadroid.slice.SliceConstants.*;
 import static com.ccadroid.util.graph.BaseGraph.EdgeType.DOWNWARD;
@@ -23,12 +26,16 @@ public class SliceMerger {
     private final SliceDatabase sliceDatabase;
     private final SliceOptimizer sliceOptimizer;
     private final CallGraph callGraph;
+    private final HashMap<String, MergeState> mergeStateMap;
+    private final HashMap<String, JSONObject> sliceMap;
 
     public SliceMerger() {
         sliceDatabase = SliceDatabase.getInstance();
         sliceOptimizer = SliceOptimizer.getInstance();
 
         callGraph = new CallGraph();
+        mergeStateMap = new HashMap<>();
+        sliceMap = new HashMap<>();
     }
 
     public static SliceMerger getInstance() {
@@ -95,12 +102,11 @@ public class SliceMerger {
         return ids;
     }
 
-    public void mergeSlices(SlicingCriterion slicingCriterion) {
+    public HashSet<String> mergeSlices(SlicingCriterion slicingCriterion) { // returns the node ids of the slices on merged paths
         String nodeId = String.valueOf(slicingCriterion.hashCode());
-        List<String> query1 = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s==null", CALLER_NAME));
-        JSONObject mergedSlice = sliceDatabase.selectOne(query1);
-        if (mergedSlice != null) {
-            return;
+        ArrayList<JSONObject> mergedSlices = sliceDatabase.selectMergedSlices(nodeId);
+        if (!mergedSlices.isEmpty()) { // for criteria merged and checked before
+            return new HashSet<>();
         }
 
         String targetStatement = slicingCriterion.getTargetStatement();
@@ -108,24 +114,13 @@ public class SliceMerger {
         ArrayList<String> targetVariables = convertToStrings(slicingCriterion.getTargetVariables());
 
         ArrayList<ArrayList<String>> listOfIds = callGraph.getListOfIds(nodeId, true);
+        HashSet<String> sliceNodeIds = getSliceNodeIds(listOfIds);
+        HashMap<String, Integer> prefixCountMap = getPrefixCountMap(listOfIds);
+        loadSlices(sliceNodeIds);
         for (ArrayList<String> ids : listOfIds) {
-            ArrayList<JSONObject> slices = new ArrayList<>();
-            ArrayList<JSONObject> mergedContent = new ArrayList<>();
-
-            for (String id : ids) {
-                List<String> query2 = List.of(String.format("%s==%s", NODE_ID, id), String.format("/%s!=null", CALLER_NAME));
-                JSONObject slice = sliceDatabase.selectOne(query2);
-                if (slice == null) {
-                    continue;
-                }
-
-                slices.add(slice);
-                JSONArray content = slice.getJSONArray(CONTENT);
-                for (Object o : content) {
-                    mergedContent.add((JSONObject) o);
-                }
-            }
-
+            boolean isOptimized = ids.size() > 1;
+            MergeState state = getMergeState(ids, isOptimized, prefixCountMap);
+            ArrayList<SliceLine> mergedContent = state.mergedContent;
             if (mergedContent.isEmpty()) {
                 continue;
             }
@@ -134,30 +129,180 @@ public class SliceMerger {
                 continue;
             }
 
-            if (ids.size() > 1) {
-                ArrayList<JSONObject> unreachables = sliceOptimizer.getUnreachableLines(slices);
+            if (isOptimized) {
+                ArrayList<SliceLine> unreachables = state.unreachableLines;
                 mergedContent.removeAll(unreachables);
-                removeUnreachableSlices(unreachables);
+                HashSet<String> invalidIds = removeUnreachableSlices(unreachables);
 
-                HashMap<Unit, Unit> updates = sliceOptimizer.getInterpretedUnits(slices);
+                HashMap<Unit, Unit> updates = state.updates;
                 sliceOptimizer.updateLines(updates, mergedContent);
+                if (!updates.isEmpty()) {
+                    invalidIds.addAll(state.updatedIds);
+                }
+
+                invalidateSlices(invalidIds);
             }
 
             sliceDatabase.insert(nodeId, targetStatement, targetParamNumbers, targetVariables, mergedContent);
+
+            Metrics metrics = Metrics.getInstance();
+            metrics.increment("mergedSlicesProduced");
+            metrics.record("mergedSliceLength", mergedContent.size());
+        }
+
+        mergeStateMap.clear();
+        sliceMap.clear();
+
+        return sliceNodeIds;
+    }
+
+    private HashSet<String> getSliceNodeIds(ArrayList<ArrayList<String>> listOfIds) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        for (ArrayList<String> l : listOfIds) {
+            ids.addAll(l);
+        }
+
+        return ids;
+    }
+
+    private HashMap<String, Integer> getPrefixCountMap(ArrayList<ArrayList<String>> listOfIds) {
+        HashMap<String, Integer> prefixCountMap = new HashMap<>();
+        for (ArrayList<String> ids : listOfIds) {
+            String[] keys = getPrefixKeys(ids);
+            for (String k : keys) {
+                prefixCountMap.merge(k, 1, Integer::sum);
+            }
         }
+
+        return prefixCountMap;
+    }
+
+    private String[] getPrefixKeys(ArrayList<String> ids) {
+        int size = ids.size();
+        String[] keys = new String[size];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.append(ids.get(i)).append(',');
+            keys[i] = builder.toString();
+        }
+
+        return keys;
     }
 
-    private boolean isStartingParameter(ArrayList<JSONObject> slice) {
-        JSONObject line = slice.get(0);
-        int unitType = line.getInt(UNIT_TYPE);
+    private void loadSlices(HashSet<String> idSet) {
+        HashMap<String, JSONObject> slices = sliceDatabase.selectByNodeIds(idSet);
+        for (String id : idSet) {
+            sliceMap.put(id, slices.get(id));
+        }
+    }
+
+    private MergeState getMergeState(ArrayList<String> ids, boolean isOptimized, HashMap<String, Integer> prefixCountMap) {
+        int size = ids.size();
+        String[] keys = getPrefixKeys(ids);
+        MergeState state = null;
+        int start = 0;
+
+        for (int i = size - 1; i >= 0; i--) { // for the longest prefix already merged
+            MergeState cachedState = mergeStateMap.get(keys[i]);
+            if (cachedState == null) {
+                continue;
+            }
+
+            state = new MergeState(cachedState);
+            start = i + 1;
+            break;
+        }
+
+        if (state == null) {
+            state = new MergeState();
+        }
+
+        for (int i = start; i < size; i++) {
+            appendSlice(state, ids.get(i), isOptimized);
+
+            if (prefixCountMap.getOrDefault(keys[i], 0) > 1) {
+                mergeStateMap.put(keys[i], new MergeState(state));
+            }
+        }
+
+        return state;
+    }
+
+    private void appendSlice(MergeState state, String id, boolean isOptimized) {
+        JSONObject slice = getSlice(id);
+        if (slice == null) {
+            return;
+        }
+
+        boolean isFirst = (state.sliceCount == 0);
+        state.sliceCount++;
+
+        SliceContent content = sliceDatabase.getContent(slice);
+        state.mergedContent.addAll(content.getLines());
+        if (!isOptimized) {
+            return;
+        }
+
+        HashMap<Unit, Unit> updates = sliceOptimizer.getInterpretedUnits(slice, state.paramConstantMap); // before the seeds move on to the next slice
+        state.updates.putAll(updates);
+        if (!updates.isEmpty()) {
+            state.updatedIds.add(id);
+        }
+
+        ArrayList<SliceLine> unreachables = sliceOptimizer.getUnreachableLines(slice, isFirst, state.paramConstantMap);
+        state.unreachableLines.addAll(unreachables);
+    }
+
+    private JSONObject getSlice(String id) {
+        if (sliceMap.containsKey(id)) {
+            return sliceMap.get(id);
+        }
+
+        HashMap<String, JSONObject> slices = sliceDatabase.selectByNodeIds(List.of(id));
+        JSONObject slice = slices.get(id);
+        sliceMap.put(id, slice);
+
+        return slice;
+    }
+
+    private boolean isStartingParameter(ArrayList<SliceLine> slice) {
+        SliceLine line = slice.get(0);
+        int unitType = line.getUnitType();
 
         return (unitType == PARAMETER);
     }
 
-    private void removeUnreachableSlices(ArrayList<JSONObject> unreachables) {
-        for (JSONObject l : unreachables) {
-            String unitStr = l.getString(UNIT_STRING);
-            int unitType = l.getInt(UNIT_TYPE);
+    private void invalidateSlices(HashSet<String> ids) { // for prefixes merged from slices deleted or updated on this path
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Set<String> keys = mergeStateMap.keySet();
+        keys.removeIf(k -> containsAnyId(k, ids));
+
+        for (String id : ids) {
+            sliceMap.remove(id);
+        }
+    }
+
+    private boolean containsAnyId(String key, HashSet<String> ids) {
+        String[] strArr = key.split(",");
+        for (String s : strArr) {
+            if (ids.contains(s)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private HashSet<String> removeUnreachableSlices(ArrayList<SliceLine> unreachables) {
+        HashSet<String> ids = new HashSet<>();
+        HashMap<String, HashSet<String>> targetStatementsMap = new HashMap<>();
+
+        for (SliceLine l : unreachables) {
+            String unitStr = l.getUnitString();
+            int unitType = l.getUnitType();
             String callerName = null;
             String targetStatement = null;
 
@@ -165,7 +310,7 @@ public class SliceMerger {
                 callerName = getSignature(unitStr);
                 targetStatement = "return";
             } else if (unitType == ASSIGN_SIGNATURE_CONSTANT) {
-                callerName = l.getString(CALLER_NAME);
+                callerName = l.getCallerName();
                 targetStatement = getSignature(unitStr);
             }
 
@@ -173,10 +318,47 @@ public class SliceMerger {
                 continue;
             }
 
-            List<String> query = List.of(String.format("%s==%s", CALLER_NAME, callerName), String.format("%s==%s", TARGET_STATEMENT, targetStatement));
-            sliceDatabase.delete(query);
+            HashSet<String> targetStatements = targetStatementsMap.computeIfAbsent(callerName, k -> new HashSet<>());
+            targetStatements.add(targetStatement);
+        }
+
+        if (targetStatementsMap.isEmpty()) {
+            return ids;
+        }
+
+        ArrayList<JSONObject> slices = sliceDatabase.selectByCallerStatements(targetStatementsMap);
+        sliceDatabase.delete(slices);
+        for (JSONObject o : slices) {
+            ids.add(o.getString(NODE_ID));
+        }
+
+        return ids;
+    }
+
+    private static class MergeState {
+        private final ArrayList<SliceLine> mergedContent;
+        private final ArrayList<SliceLine> unreachableLines;
+        private final HashMap<Integer, Object> paramConstantMap;
+        private final HashMap<Unit, Unit> updates;
+        private final HashSet<String> updatedIds;
+        private int sliceCount;
+
+        private MergeState() {
+            mergedContent = new ArrayList<>();
+            unreachableLines = new ArrayList<>();
+            paramConstantMap = new HashMap<>();
+            updates = new HashMap<>();
+            updatedIds = new HashSet<>();
         }
 
+        private MergeState(MergeState state) {
+            mergedContent = new ArrayList<>(state.mergedContent);
+            unreachableLines = new ArrayList<>(state.unreachableLines);
+            paramConstantMap = new HashMap<>(state.paramConstantMap);
+            updates = new HashMap<>(state.updates);
+            updatedIds = new HashSet<>(state.updatedIds);
+            sliceCount = state.sliceCount;
+        }
     }
 
     private static class Holder {
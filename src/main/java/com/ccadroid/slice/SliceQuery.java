@@ -0,0 +1,116 @@
+package com.ccadroid.slice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SliceQuery {
+    private final ArrayList<Condition> conditions;
+
+    private SliceQuery(ArrayList<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    private SliceQuery(Operator operator, String key, String value) {
+        conditions = new ArrayList<>();
+        conditions.add(new Condition(operator, key, value));
+    }
+
+    public static SliceQuery eq(String key, String value) {
+        return new SliceQuery(Operator.EQUALS, key, value);
+    }
+
+    public static SliceQuery notEq(String key, String value) {
+        return new SliceQuery(Operator.NOT_EQUALS, key, value);
+    }
+
+    public static SliceQuery isNull(String key) {
+        return new SliceQuery(Operator.IS_NULL, key, null);
+    }
+
+    public static SliceQuery isNotNull(String key) {
+        return new SliceQuery(Operator.IS_NOT_NULL, key, null);
+    }
+
+    public static SliceQuery containsToken(String key, String token) {
+        return new SliceQuery(Operator.CONTAINS_TOKEN, key, token);
+    }
+
+    public static SliceQuery parse(List<String> query) {
+        ArrayList<Condition> conditions = new ArrayList<>();
+
+        for (String q : query) {
+            String[] arr = q.split("(==)|(!=)|( in )");
+            String k = arr[0];
+            String v = arr[1];
+
+            if (v.equals("null")) { // for JSON pointers like /callerName
+                String key = k.startsWith("/") ? k.substring(1) : k;
+                Operator operator = q.contains("==") ? Operator.IS_NULL : Operator.IS_NOT_NULL;
+                conditions.add(new Condition(operator, key, null));
+            } else if (q.contains(" in ")) {
+                conditions.add(new Condition(Operator.CONTAINS_TOKEN, k, v));
+            } else if (q.contains("!=")) {
+                conditions.add(new Condition(Operator.NOT_EQUALS, k, v));
+            } else {
+                conditions.add(new Condition(Operator.EQUALS, k, v));
+            }
+        }
+
+        return new SliceQuery(conditions);
+    }
+
+    public SliceQuery and(SliceQuery query) {
+        ArrayList<Condition> list = new ArrayList<>(conditions);
+        list.addAll(query.conditions);
+
+        return new SliceQuery(list);
+    }
+
+    protected ArrayList<Condition> getConditions() {
+        return conditions;
+    }
+
+    protected enum Operator {
+        EQUALS("equals", 0), NOT_EQUALS("notEquals", 0), IS_NULL("isNull", 0), IS_NOT_NULL("isNotNull", 0), CONTAINS_TOKEN("in", 1);
+
+        private final String name;
+        private final int cost;
+
+        Operator(String name, int cost) {
+            this.name = name;
+            this.cost = cost;
+        }
+
+        protected String getName() {
+            return name;
+        }
+
+        protected int getCost() {
+            return cost;
+        }
+    }
+
+    protected static class Condition {
+        private final Operator operator;
+        private final String key;
+        private final String value;
+
+        private Condition(Operator operator, String key, String value) {
+            this.operator = operator;
+            this.key = key;
+            this.value = value;
+        }
+
+        protected Operator getOperator() {
+            return operator;
+        }
+
+        protected String getKey() {
+            return key;
+        }
+
+        protected String getValue() {
+            return value;
+        }
+    }
+}
\ No newline at end of file
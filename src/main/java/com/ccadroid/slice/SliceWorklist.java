@@ -0,0 +1,93 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.inspect.SlicingCriterion;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+public class SliceWorklist {
+    private final HashMap<SlicingCriterion, Entry> entryMap;
+    private final TreeSet<Entry> entries;
+    private final HashSet<SlicingCriterion> polledSlicingCriteria;
+    private long sequence;
+
+    public SliceWorklist() {
+        entryMap = new HashMap<>();
+        entries = new TreeSet<>();
+        polledSlicingCriteria = new HashSet<>();
+    }
+
+    public boolean add(SlicingCriterion slicingCriterion, int priority) {
+        if (entryMap.containsKey(slicingCriterion) || polledSlicingCriteria.contains(slicingCriterion)) {
+            return false;
+        }
+
+        Entry entry = new Entry(slicingCriterion, priority, sequence++);
+        entryMap.put(slicingCriterion, entry);
+        entries.add(entry);
+
+        return true;
+    }
+
+    public SlicingCriterion poll() {
+        Entry entry = entries.pollFirst();
+        if (entry == null) {
+            return null;
+        }
+
+        SlicingCriterion slicingCriterion = entry.slicingCriterion;
+        entryMap.remove(slicingCriterion);
+        polledSlicingCriteria.add(slicingCriterion);
+
+        return slicingCriterion;
+    }
+
+    public void removeAll(Collection<SlicingCriterion> slicingCriteria) {
+        for (SlicingCriterion sc : slicingCriteria) {
+            Entry entry = entryMap.remove(sc);
+            if (entry != null) {
+                entries.remove(entry);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entryMap.clear();
+        entries.clear();
+        polledSlicingCriteria.clear();
+        sequence = 0;
+    }
+
+    public enum Policy {
+        FIFO, LEVEL, HOPS
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final SlicingCriterion slicingCriterion;
+        private final int priority;
+        private final long sequence;
+
+        private Entry(SlicingCriterion slicingCriterion, int priority, long sequence) {
+            this.slicingCriterion = slicingCriterion;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry entry) {
+            int result = Integer.compare(priority, entry.priority);
+
+            return (result != 0) ? result : Long.compare(sequence, entry.sequence);
+        }
+    }
+}
\ No newline at end of file
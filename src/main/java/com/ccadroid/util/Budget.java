@@ -0,0 +1,113 @@
+package com.ccadroid.util;
+
+import java.util.LinkedHashSet;
+
+public class Budget {
+    private static final boolean ENABLED = Boolean.parseBoolean(Configuration.getProperty("budget.enabled"));
+    private static final double HEAP_RATIO = Double.parseDouble(Configuration.getProperty("budget.heapRatio"));
+    private static final int MAX_DEGRADE_LEVEL = 3;
+    private static final int[] MAX_PATH_COUNTS = {Integer.MAX_VALUE, 1000, 100, 10};
+    private static final int[] MAX_PATH_DEPTHS = {Integer.MAX_VALUE, 32, 16, 8};
+    private final LinkedHashSet<String> exceededPhases;
+    private final LinkedHashSet<String> unanalyzedClassNames;
+    private String phase;
+    private long phaseBudget;
+    private long deadline;
+    private int degradeLevel;
+
+    public Budget() {
+        exceededPhases = new LinkedHashSet<>();
+        unanalyzedClassNames = new LinkedHashSet<>();
+        deadline = Long.MAX_VALUE;
+    }
+
+    public static Budget getInstance() {
+        return Budget.Holder.instance;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public void startPhase(String phase) {
+        if (!ENABLED) {
+            return;
+        }
+
+        this.phase = phase;
+        String value = Configuration.getProperty("budget." + phase + "Ms");
+        phaseBudget = (value == null) ? 0 : Long.parseLong(value) * 1000000;
+        deadline = (phaseBudget <= 0) ? Long.MAX_VALUE : System.nanoTime() + phaseBudget;
+    }
+
+    public synchronized boolean isExceeded() {
+        if (!ENABLED) {
+            return false;
+        }
+
+        if (System.nanoTime() > deadline) {
+            return true;
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
+
+        return usedMemory > runtime.maxMemory() * HEAP_RATIO;
+    }
+
+    public synchronized boolean degrade() {
+        exceededPhases.add(phase);
+        if (degradeLevel >= MAX_DEGRADE_LEVEL) {
+            return false;
+        }
+
+        degradeLevel++;
+        if (phaseBudget > 0) { // for a shorter grace period at each level
+            deadline = System.nanoTime() + (phaseBudget >> degradeLevel);
+        }
+
+        System.out.println("[*] WARNING : Budget exceeded in " + phase + ", degrading to level " + degradeLevel);
+
+        return true;
+    }
+
+    public synchronized boolean isIncomplete() {
+        return !exceededPhases.isEmpty();
+    }
+
+    public LinkedHashSet<String> getExceededPhases() {
+        return exceededPhases;
+    }
+
+    public void addUnanalyzedClassName(String className) {
+        unanalyzedClassNames.add(className);
+    }
+
+    public LinkedHashSet<String> getUnanalyzedClassNames() {
+        return unanalyzedClassNames;
+    }
+
+    public int getMaxPathCount() {
+        return MAX_PATH_COUNTS[degradeLevel];
+    }
+
+    public int getMaxPathDepth() {
+        return MAX_PATH_DEPTHS[degradeLevel];
+    }
+
+    public int getUpperLevel(int upperLevel) {
+        return (degradeLevel == 0) ? upperLevel : Math.max(1, upperLevel >> degradeLevel);
+    }
+
+    public int getLowerLevel(int lowerLevel) {
+        return (degradeLevel == 0) ? lowerLevel : -Math.max(1, (-lowerLevel) >> degradeLevel);
+    }
+
+    public int getCriteriaLimit(int criteriaCount) {
+        return criteriaCount >> degradeLevel;
+    }
+
+    private static class Holder {
+        private static final Budget instance = new Budget();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.ccadroid.util;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Metrics {
+    private static final boolean ENABLED = Boolean.parseBoolean(Configuration.getProperty("metrics.enabled"));
+    private static final int BUCKET_COUNT = 32;
+    private final ConcurrentHashMap<String, LongAdder> phaseTimeMap;
+    private final ConcurrentHashMap<String, LongAdder> phaseCountMap;
+    private final ConcurrentHashMap<String, LongAdder> counterMap;
+    private final ConcurrentHashMap<String, Histogram> histogramMap;
+
+    public Metrics() {
+        phaseTimeMap = new ConcurrentHashMap<>();
+        phaseCountMap = new ConcurrentHashMap<>();
+        counterMap = new ConcurrentHashMap<>();
+        histogramMap = new ConcurrentHashMap<>();
+    }
+
+    public static Metrics getInstance() {
+        return Metrics.Holder.instance;
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    public long startTimer() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public void stopTimer(String phase, long startTime) {
+        if (!ENABLED) {
+            return;
+        }
+
+        long elapsedTime = System.nanoTime() - startTime;
+        phaseTimeMap.computeIfAbsent(phase, k -> new LongAdder()).add(elapsedTime);
+        phaseCountMap.computeIfAbsent(phase, k -> new LongAdder()).increment();
+    }
+
+    public void increment(String counter) {
+        add(counter, 1);
+    }
+
+    public void add(String counter, long delta) {
+        if (!ENABLED) {
+            return;
+        }
+
+        counterMap.computeIfAbsent(counter, k -> new LongAdder()).add(delta);
+    }
+
+    public void record(String histogram, long value) {
+        if (!ENABLED) {
+            return;
+        }
+
+        histogramMap.computeIfAbsent(histogram, k -> new Histogram()).record(value);
+    }
+
+    public JSONObject toJSON() {
+        JSONObject phases = new JSONObject();
+        Set<Map.Entry<String, LongAdder>> entries = phaseTimeMap.entrySet();
+        for (Map.Entry<String, LongAdder> e : entries) {
+            String phase = e.getKey();
+            JSONObject object = new JSONObject();
+            object.put("count", phaseCountMap.get(phase).sum());
+            object.put("totalMs", e.getValue().sum() / 1000000);
+            phases.put(phase, object);
+        }
+
+        JSONObject counters = new JSONObject();
+        entries = counterMap.entrySet();
+        for (Map.Entry<String, LongAdder> e : entries) {
+            counters.put(e.getKey(), e.getValue().sum());
+        }
+
+        JSONObject histograms = new JSONObject();
+        Set<Map.Entry<String, Histogram>> histogramEntries = histogramMap.entrySet();
+        for (Map.Entry<String, Histogram> e : histogramEntries) {
+            histograms.put(e.getKey(), e.getValue().toJSON());
+        }
+
+        JSONObject root = new JSONObject();
+        root.put("phases", phases);
+        root.put("counters", counters);
+        root.put("histograms", histograms);
+
+        return root;
+    }
+
+    public void dump() {
+        if (!ENABLED) {
+            return;
+        }
+
+        String outputPath = Configuration.getProperty("metrics.outputPath");
+        Path path = Paths.get(outputPath);
+
+        try {
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            Files.write(path, toJSON().toString(2).getBytes(StandardCharsets.UTF_8));
+            System.out.println("[*] Metrics : " + path);
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot write metrics: " + path);
+        }
+    }
+
+    private static class Histogram {
+        private final long[] buckets = new long[BUCKET_COUNT]; // bucket i counts values in [2^(i-1), 2^i)
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+
+        private synchronized void record(long value) {
+            int index = (value <= 0) ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+            buckets[index]++;
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        private synchronized JSONObject toJSON() {
+            TreeMap<Long, Long> bucketMap = new TreeMap<>();
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (buckets[i] > 0) {
+                    bucketMap.put((i == 0) ? 0 : (1L << i) - 1, buckets[i]); // keyed by upper bound
+                }
+            }
+
+            JSONObject object = new JSONObject();
+            object.put("count", count);
+            object.put("sum", sum);
+            object.put("min", (count == 0) ? 0 : min);
+            object.put("max", (count == 0) ? 0 : max);
+            object.put("mean", (count == 0) ? 0 : (double) sum / count);
+            object.put("buckets", bucketMap);
+
+            return object;
+        }
+    }
+
+    private static class Holder {
+        private static final Metrics instance = new Metrics();
+    }
+}
\ No newline at end of file
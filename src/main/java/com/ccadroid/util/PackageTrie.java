@@ -0,0 +1,49 @@
+package com.ccadroid.util;
+
+import java.util.HashMap;
+import java.util.StringTokenizer;
+
+public class PackageTrie {
+    private final TrieNode root;
+
+    public PackageTrie() {
+        root = new TrieNode();
+    }
+
+    public void addPackage(String packageName, boolean isExcluded) {
+        TrieNode node = root;
+
+        StringTokenizer tokenizer = new StringTokenizer(packageName, ".");
+        while (tokenizer.hasMoreTokens()) {
+            String token = tokenizer.nextToken();
+            node = node.children.computeIfAbsent(token, k -> new TrieNode());
+        }
+
+        node.isExcluded = isExcluded;
+    }
+
+    public boolean isExcluded(String className) {
+        TrieNode node = root;
+        Boolean isExcluded = null;
+
+        StringTokenizer tokenizer = new StringTokenizer(className, ".$");
+        while (tokenizer.hasMoreTokens()) {
+            String token = tokenizer.nextToken();
+            node = node.children.get(token);
+            if (node == null) {
+                break;
+            }
+
+            if (node.isExcluded != null) { // the longest matching prefix wins
+                isExcluded = node.isExcluded;
+            }
+        }
+
+        return isExcluded != null && isExcluded;
+    }
+
+    private static class TrieNode {
+        private final HashMap<String, TrieNode> children = new HashMap<>();
+        private Boolean isExcluded;
+    }
+}
\ No newline at end of file
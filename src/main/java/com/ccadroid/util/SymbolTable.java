@@ -0,0 +1,62 @@
+package com.ccadroid.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SymbolTable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private final ConcurrentHashMap<String, Integer> idMap;
+    private volatile String[] symbols;
+    private int size;
+
+    public SymbolTable() {
+        idMap = new ConcurrentHashMap<>();
+        symbols = new String[INITIAL_CAPACITY];
+    }
+
+    public static SymbolTable getInstance() {
+        return SymbolTable.Holder.instance;
+    }
+
+    public int getId(String str) {
+        Integer id = idMap.get(str);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (this) {
+            id = idMap.get(str);
+            if (id != null) {
+                return id;
+            }
+
+            String[] tempSymbols = symbols;
+            if (size == tempSymbols.length) {
+                tempSymbols = Arrays.copyOf(tempSymbols, size << 1);
+            }
+
+            tempSymbols[size] = str;
+            symbols = tempSymbols; // for publishing the symbol before its id
+            id = size++;
+            idMap.put(str, id);
+        }
+
+        return id;
+    }
+
+    public String getSymbol(int id) {
+        return symbols[id];
+    }
+
+    public String intern(String str) {
+        return (str == null) ? null : getSymbol(getId(str));
+    }
+
+    public int size() {
+        return idMap.size();
+    }
+
+    private static class Holder {
+        private static final SymbolTable instance = new SymbolTable();
+    }
+}
\ No newline at end of file
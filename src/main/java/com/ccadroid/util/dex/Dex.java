@@ -0,0 +1,115 @@
+package com.ccadroid.util.dex;
+
+import org.jf.dexlib2.iface.reference.FieldReference;
+import org.jf.dexlib2.iface.reference.MethodReference;
+
+import java.util.List;
+
+public class Dex {
+
+    private Dex() throws InstantiationException {
+        throw new InstantiationException();
+    }
+
+    public static String getSignature(MethodReference reference) {
+        String className = getTypeName(reference.getDefiningClass());
+        String returnType = getTypeName(reference.getReturnType());
+        String methodName = reference.getName();
+
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("<").append(className).append(": ").append(returnType).append(" ").append(methodName).append("(");
+
+        List<? extends CharSequence> paramTypes = reference.getParameterTypes();
+        int size = paramTypes.size();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                buffer.append(",");
+            }
+
+            String paramType = paramTypes.get(i).toString();
+            buffer.append(getTypeName(paramType));
+        }
+
+        buffer.append(")>");
+
+        return buffer.toString();
+    }
+
+    public static String getSignature(FieldReference reference) {
+        String className = getTypeName(reference.getDefiningClass());
+        String type = getTypeName(reference.getType());
+        String fieldName = reference.getName();
+
+        return "<" + className + ": " + type + " " + fieldName + ">";
+    }
+
+    public static String getTypeName(String type) {
+        int dimension = 0;
+        while (type.charAt(dimension) == '[') {
+            dimension++;
+        }
+
+        String typeName;
+        char c = type.charAt(dimension);
+        switch (c) {
+            case 'Z': {
+                typeName = "boolean";
+                break;
+            }
+
+            case 'B': {
+                typeName = "byte";
+                break;
+            }
+
+            case 'S': {
+                typeName = "short";
+                break;
+            }
+
+            case 'C': {
+                typeName = "char";
+                break;
+            }
+
+            case 'I': {
+                typeName = "int";
+                break;
+            }
+
+            case 'J': {
+                typeName = "long";
+                break;
+            }
+
+            case 'F': {
+                typeName = "float";
+                break;
+            }
+
+            case 'D': {
+                typeName = "double";
+                break;
+            }
+
+            case 'V': {
+                typeName = "void";
+                break;
+            }
+
+            default: { // for class type
+                int beginIndex = dimension + 1;
+                int endIndex = type.length() - 1;
+                typeName = type.substring(beginIndex, endIndex).replace('/', '.');
+                break;
+            }
+        }
+
+        StringBuilder buffer = new StringBuilder(typeName);
+        for (int i = 0; i < dimension; i++) {
+            buffer.append("[]");
+        }
+
+        return buffer.toString();
+    }
+}
\ No newline at end of file
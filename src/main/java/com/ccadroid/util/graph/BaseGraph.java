@@ -1,15 +1,21 @@
 package com.ccadroid.util.graph;
 
+import com.ccadroid.util.Budget;
+import com.ccadroid.util.Metrics;
+import com.ccadroid.util.SymbolTable;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public abstract class BaseGraph {
+    private static final ThreadLocal<FrameStack> FRAME_STACK = ThreadLocal.withInitial(FrameStack::new);
     protected Graph graph;
 
     public BaseGraph() {
@@ -19,7 +25,8 @@ public abstract class BaseGraph {
     protected Node addNode(String id, String label) {
         Node node = graph.getNode(id);
         if (node == null) {
-            node = graph.addNode(id);
+            SymbolTable symbolTable = SymbolTable.getInstance();
+            node = graph.addNode(symbolTable.intern(id));
         }
 
         node.setAttribute("label", label);
@@ -49,6 +56,12 @@ public abstract class BaseGraph {
         return graph.getNode(id);
     }
 
+    protected List<Node> getNodes() {
+        Stream<Node> stream = graph.nodes();
+
+        return stream.collect(Collectors.toList());
+    }
+
     protected List<Edge> getEdges(Node node) {
         Stream<Edge> stream = node.edges();
 
@@ -73,17 +86,71 @@ public abstract class BaseGraph {
             return new ArrayList<>();
         }
 
-        ArrayList<String> ids = new ArrayList<>();
+        Budget budget = Budget.getInstance();
+        Metrics metrics = Metrics.getInstance();
         ArrayList<ArrayList<String>> listOfIds = new ArrayList<>();
-        traverse(node, ids, listOfIds, isUpper);
+        traverse(node, isUpper, budget.getMaxPathDepth(), ids -> {
+            listOfIds.add(ids);
+            metrics.increment("pathsEnumerated");
+
+            if (budget.isExceeded()) {
+                budget.degrade();
+            }
+
+            return listOfIds.size() < budget.getMaxPathCount();
+        });
 
         if (listOfIds.isEmpty()) {
+            ArrayList<String> ids = new ArrayList<>();
+            ids.add(id);
             listOfIds.add(ids);
         }
 
         return listOfIds;
     }
 
+    protected boolean traverse(Node node, boolean isUpper, int maxDepth, Predicate<ArrayList<String>> visitor) { // false if the visitor stopped the traversal
+        FrameStack stack = FRAME_STACK.get();
+        if (!stack.isEmpty()) { // for traversals started inside a visitor
+            stack = new FrameStack();
+        }
+
+        try {
+            stack.push(node);
+            while (!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                Node node1 = frame.node;
+                int degree = (stack.size() < maxDepth) ? node1.getDegree() : 0;
+
+                Node node2 = null;
+                while (frame.edgeIndex < degree) {
+                    Edge edge = node1.getEdge(frame.edgeIndex++);
+                    Node opposite = isUpper ? edge.getSourceNode() : edge.getTargetNode();
+                    if (!stack.contains(opposite.getId())) { // escape loop
+                        node2 = opposite;
+                        break;
+                    }
+                }
+
+                if (node2 != null) {
+                    frame.hasChild = true;
+                    stack.push(node2);
+                    continue;
+                }
+
+                if (!frame.hasChild && !visitor.test(stack.getIds(isUpper))) {
+                    return false;
+                }
+
+                stack.pop();
+            }
+
+            return true;
+        } finally {
+            stack.clear();
+        }
+    }
+
     private String getEdgeId(Node node1, Node node2, EdgeType type) {
         String id;
         if (type == EdgeType.UPWARD) {
@@ -99,38 +166,74 @@ public abstract class BaseGraph {
         return id;
     }
 
-    private void traverse(Node node, ArrayList<String> ids, ArrayList<ArrayList<String>> listOfIds, boolean isUpper) {
-        if (ids.isEmpty()) {
-            String id = node.getId();
-            ids.add(id);
+    public enum EdgeType {
+        READ, WRITE, UPWARD, DOWNWARD, NONE
+    }
+
+    private static class FrameStack {
+        private final ArrayList<Frame> frames;
+        private final HashSet<String> ids;
+        private int size;
+
+        private FrameStack() {
+            frames = new ArrayList<>();
+            ids = new HashSet<>();
         }
 
-        boolean flag = false;
-        List<Edge> edges = getEdges(node);
-        for (Edge e : edges) {
-            Node node2 = isUpper ? e.getSourceNode() : e.getTargetNode();
-            String id2 = node2.getId();
-            if (ids.contains(id2)) { // escape loop
-                continue;
+        private void push(Node node) {
+            if (size == frames.size()) {
+                frames.add(new Frame());
             }
 
-            flag = true;
-            ArrayList<String> tempIds = new ArrayList<>(ids);
-            if (isUpper) {
-                tempIds.add(0, id2);
-            } else {
-                tempIds.add(id2);
+            Frame frame = frames.get(size++);
+            frame.node = node;
+            frame.edgeIndex = 0;
+            frame.hasChild = false;
+            ids.add(node.getId());
+        }
+
+        private Frame peek() {
+            return frames.get(size - 1);
+        }
+
+        private void pop() {
+            Frame frame = frames.get(--size);
+            ids.remove(frame.node.getId());
+            frame.node = null;
+        }
+
+        private boolean contains(String id) {
+            return ids.contains(id);
+        }
+
+        private ArrayList<String> getIds(boolean isUpper) {
+            ArrayList<String> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Frame frame = frames.get(isUpper ? size - 1 - i : i);
+                list.add(frame.node.getId());
             }
 
-            traverse(node2, tempIds, listOfIds, isUpper);
+            return list;
         }
 
-        if (!flag) {
-            listOfIds.add(ids);
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void clear() {
+            while (size > 0) {
+                pop();
+            }
         }
     }
 
-    public enum EdgeType {
-        READ, WRITE, UPWARD, DOWNWARD, NONE
+    private static class Frame {
+        private Node node;
+        private int edgeIndex;
+        private boolean hasChild;
     }
 }
\ No newline at end of file
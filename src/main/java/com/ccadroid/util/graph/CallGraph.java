@@ -6,6 +6,7 @@ import org.graphstream.graph.implementations.SingleGraph;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
 
 import static com.ccadroid.util.graph.BaseGraph.EdgeType.*;
 
@@ -31,6 +32,10 @@ public class CallGraph extends BaseGraph {
         return super.getNode(id);
     }
 
+    public List<Node> getNodes() {
+        return super.getNodes();
+    }
+
     public List<Edge> getEdges(Node node) {
         return super.getEdges(node);
     }
@@ -53,4 +58,8 @@ public class CallGraph extends BaseGraph {
     public ArrayList<ArrayList<String>> getListOfIds(String id, boolean isUpper) {
         return super.getListOfIds(id, isUpper);
     }
+
+    public boolean traverse(Node node, boolean isUpper, int maxDepth, Predicate<ArrayList<String>> visitor) {
+        return super.traverse(node, isUpper, maxDepth, visitor);
+    }
 }
\ No newline at end of file
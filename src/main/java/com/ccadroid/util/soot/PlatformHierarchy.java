@@ -0,0 +1,142 @@
+package com.ccadroid.util.soot;
+
+import com.ccadroid.util.Configuration;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class PlatformHierarchy {
+    private HashMap<String, ClassEntry> entryMap;
+
+    public PlatformHierarchy() {
+        entryMap = new HashMap<>();
+    }
+
+    public static PlatformHierarchy getInstance() {
+        return PlatformHierarchy.Holder.instance;
+    }
+
+    public void load(String androidJarPath, int apiVersion) {
+        String cacheDir = Configuration.getProperty("soot.hierarchyCacheDir");
+        Path cachePath = Paths.get(cacheDir, "android-" + apiVersion + ".ser");
+        if (Files.exists(cachePath)) {
+            readCache(cachePath);
+        }
+
+        if (entryMap.isEmpty()) {
+            buildHierarchy(androidJarPath);
+            writeCache(cachePath);
+        }
+
+        System.out.println("[*] Platform classes : " + entryMap.size() + " (API level " + apiVersion + ")");
+    }
+
+    public boolean containsClass(String className) {
+        return entryMap.containsKey(className);
+    }
+
+    public boolean isEnumClass(String className) {
+        ClassEntry entry = entryMap.get(className);
+
+        return entry != null && (entry.modifiers & Opcodes.ACC_ENUM) != 0;
+    }
+
+    public boolean isInterfaceOf(String className, ArrayList<String> targetTypes) {
+        ClassEntry entry = entryMap.get(className);
+        if (entry == null) {
+            return false;
+        }
+
+        for (String s : entry.interfaceNames) {
+            if (targetTypes.contains(s)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readCache(Path cachePath) {
+        try {
+            InputStream inputStream = Files.newInputStream(cachePath);
+            ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(inputStream));
+            entryMap = (HashMap<String, ClassEntry>) ois.readObject();
+
+            ois.close();
+        } catch (IOException | ClassNotFoundException | ClassCastException ignored) {
+            System.out.println("[*] ERROR : Cannot read platform hierarchy: " + cachePath);
+            entryMap = new HashMap<>();
+        }
+    }
+
+    private void writeCache(Path cachePath) {
+        try {
+            Path parent = cachePath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            OutputStream outputStream = Files.newOutputStream(cachePath);
+            ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(outputStream));
+            oos.writeObject(entryMap);
+
+            oos.close();
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot write platform hierarchy: " + cachePath);
+        }
+    }
+
+    private void buildHierarchy(String androidJarPath) {
+        try {
+            ZipFile zipFile = new ZipFile(androidJarPath);
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry e = entries.nextElement();
+                if (!e.getName().endsWith(".class")) {
+                    continue;
+                }
+
+                InputStream inputStream = zipFile.getInputStream(e);
+                ClassReader reader = new ClassReader(inputStream); // only the class header is read
+                inputStream.close();
+
+                String className = toClassName(reader.getClassName());
+                ClassEntry entry = new ClassEntry();
+                entry.modifiers = reader.getAccess();
+                for (String s : reader.getInterfaces()) {
+                    entry.interfaceNames.add(toClassName(s));
+                }
+
+                entryMap.put(className, entry);
+            }
+
+            zipFile.close();
+        } catch (IOException ignored) {
+            System.out.println("[*] ERROR : Cannot read android jar: " + androidJarPath);
+        }
+    }
+
+    private String toClassName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static class ClassEntry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final ArrayList<String> interfaceNames = new ArrayList<>();
+        private int modifiers;
+    }
+
+    private static class Holder {
+        private static final PlatformHierarchy instance = new PlatformHierarchy();
+    }
+}
\ No newline at end of file
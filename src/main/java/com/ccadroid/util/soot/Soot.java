@@ -1,8 +1,12 @@
 package com.ccadroid.util.soot;
 
 import com.ccadroid.inspect.ApkParser;
+import com.ccadroid.inspect.PackageFilter;
+import com.ccadroid.util.Configuration;
+import com.ccadroid.util.Metrics;
 import soot.Scene;
 import soot.SootClass;
+import soot.SootMethod;
 import soot.options.Options;
 import soot.util.Chain;
 
@@ -11,6 +15,7 @@ import java.util.Collections;
 import java.util.Iterator;
 
 public class Soot {
+    private static final boolean LAZY_RESOLVE = Boolean.parseBoolean(Configuration.getProperty("soot.lazyResolve"));
 
     private Soot() throws InstantiationException {
         throw new InstantiationException();
@@ -27,29 +32,79 @@ public class Soot {
         Options.v().set_src_prec(Options.src_prec_apk);
         Options.v().set_android_jars(sdkHomeDir + "/" + "platforms");
         Options.v().set_process_dir(Collections.singletonList(apkPath));
-        Options.v().set_whole_program(true);
         Options.v().set_allow_phantom_refs(true);
-        Options.v().set_full_resolver(true);
         Options.v().set_ignore_resolution_errors(true);
         Options.v().set_ignore_resolving_levels(true);
+
+        PackageFilter packageFilter = PackageFilter.getInstance();
+        Options.v().set_exclude(convertToPatterns(packageFilter.getExcludedPackages()));
+        Options.v().set_include(convertToPatterns(packageFilter.getIncludedPackages()));
+
+        if (LAZY_RESOLVE) { // for resolving referenced classes at signature level
+            Options.v().set_whole_program(false);
+            Options.v().set_full_resolver(false);
+            Options.v().set_output_format(Options.output_format_none);
+
+            String androidJarPath = Scene.v().getAndroidJarPath(sdkHomeDir + "/" + "platforms", apkPath);
+            int apiVersion = Scene.v().getAndroidAPIVersion();
+            PlatformHierarchy platformHierarchy = PlatformHierarchy.getInstance();
+            platformHierarchy.load(androidJarPath, apiVersion);
+        } else {
+            Options.v().set_whole_program(true);
+            Options.v().set_full_resolver(true);
+        }
     }
 
     public static void loadDexClasses() {
         ApkParser apkParser = ApkParser.getInstance();
+        PackageFilter packageFilter = PackageFilter.getInstance();
+        Metrics metrics = Metrics.getInstance();
         ArrayList<String> dexClassNames = apkParser.getDexClassNames();
         for (String s : dexClassNames) {
+            if (packageFilter.isExcludedClass(s)) {
+                continue;
+            }
+
             try {
-                Scene.v().loadClassAndSupport(s);
+                if (LAZY_RESOLVE) {
+                    SootClass sootClass = Scene.v().forceResolve(s, SootClass.SIGNATURES);
+                    sootClass.setApplicationClass();
+                } else {
+                    Scene.v().loadClassAndSupport(s);
+                }
+
+                metrics.increment("classesLoaded");
             } catch (NoClassDefFoundError | IllegalArgumentException ignored) {
 
             }
         }
 
         Scene.v().loadBasicClasses();
-        Scene.v().loadNecessaryClasses();
+        if (LAZY_RESOLVE) { // for skipping the sweep over every class in the process dir
+            Scene.v().setDoneResolving();
+        } else {
+            Scene.v().loadNecessaryClasses();
+        }
+    }
+
+    public static void promoteToBodies(SootClass sootClass) {
+        if (!LAZY_RESOLVE || sootClass.resolvingLevel() >= SootClass.BODIES) {
+            return;
+        }
+
+        try {
+            Scene.v().forceResolve(sootClass.getName(), SootClass.BODIES);
+        } catch (NoClassDefFoundError | IllegalArgumentException ignored) {
+
+        }
     }
 
     public static boolean isInterfaceOf(String typeName, ArrayList<String> targetTypes) {
+        if (isPlatformClass(typeName)) {
+            PlatformHierarchy platformHierarchy = PlatformHierarchy.getInstance();
+            return platformHierarchy.isInterfaceOf(typeName, targetTypes);
+        }
+
         SootClass class1 = getSootClass(typeName);
         Chain<SootClass> interfaces = class1.getInterfaces();
         Iterator<SootClass> iterator = interfaces.stream().iterator();
@@ -66,12 +121,40 @@ public class Soot {
     }
 
     public static boolean isEnumClass(String className) {
+        if (isPlatformClass(className)) {
+            PlatformHierarchy platformHierarchy = PlatformHierarchy.getInstance();
+            return platformHierarchy.isEnumClass(className);
+        }
+
         SootClass sootClass = getSootClass(className);
 
         return sootClass.isEnum();
     }
 
+    private static boolean isPlatformClass(String className) {
+        if (!LAZY_RESOLVE) {
+            return false;
+        }
+
+        PlatformHierarchy platformHierarchy = PlatformHierarchy.getInstance();
+
+        return platformHierarchy.containsClass(className) && !Scene.v().containsClass(className);
+    }
+
+    private static ArrayList<String> convertToPatterns(ArrayList<String> packages) {
+        ArrayList<String> patterns = new ArrayList<>();
+        for (String p : packages) {
+            patterns.add(p + ".*");
+        }
+
+        return patterns;
+    }
+
     public static SootClass getSootClass(String className) {
         return Scene.v().getSootClass(className);
     }
+
+    public static SootMethod getSootMethod(String signature) {
+        return Scene.v().grabMethod(signature);
+    }
 }
\ No newline at end of file
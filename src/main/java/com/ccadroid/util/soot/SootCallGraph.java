@@ -0,0 +1,114 @@
+package com.ccadroid.util.soot;
+
+import soot.*;
+import soot.jimple.*;
+import soot.jimple.toolkits.callgraph.CallGraph;
+import soot.jimple.toolkits.callgraph.Edge;
+import soot.options.Options;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SootCallGraph {
+    private static final String DUMMY_MAIN_CLASS = "dummyMainClass";
+    private static final String DUMMY_MAIN_METHOD = "dummyMainMethod";
+
+    private SootCallGraph() throws InstantiationException {
+        throw new InstantiationException();
+    }
+
+    public static ArrayList<String[]> getEdges(String algorithm, ArrayList<String> entryClassNames) {
+        ArrayList<String[]> edges = new ArrayList<>();
+
+        SootMethod dummyMain = createDummyMain(entryClassNames);
+        Scene.v().setEntryPoints(Collections.singletonList(dummyMain));
+
+        if (algorithm.equals("spark")) {
+            Options.v().setPhaseOption("cg.spark", "on");
+        } else {
+            Options.v().setPhaseOption("cg.cha", "on");
+        }
+
+        PackManager.v().getPack("cg").apply();
+
+        CallGraph callGraph = Scene.v().getCallGraph();
+        for (Edge e : callGraph) {
+            SootMethod src = e.src();
+            SootMethod tgt = e.tgt();
+            if (src == null || tgt == null || src == dummyMain) {
+                continue;
+            }
+
+            String callerName = src.getSignature();
+            String calleeName = tgt.getSignature();
+            edges.add(new String[]{callerName, calleeName});
+        }
+
+        return edges;
+    }
+
+    private static SootMethod createDummyMain(ArrayList<String> entryClassNames) { // for lifecycle methods of components
+        SootClass mainClass = new SootClass(DUMMY_MAIN_CLASS, Modifier.PUBLIC);
+        mainClass.setSuperclass(Scene.v().getSootClass("java.lang.Object"));
+        Scene.v().addClass(mainClass);
+
+        ArrayType argsType = ArrayType.v(RefType.v("java.lang.String"), 1);
+        SootMethod mainMethod = new SootMethod(DUMMY_MAIN_METHOD, Collections.singletonList(argsType), VoidType.v(), Modifier.PUBLIC | Modifier.STATIC);
+        mainClass.addMethod(mainMethod);
+
+        JimpleBody body = Jimple.v().newBody(mainMethod);
+        mainMethod.setActiveBody(body);
+
+        int localCount = 0;
+        for (String s : entryClassNames) {
+            if (!Scene.v().containsClass(s)) {
+                continue;
+            }
+
+            SootClass sootClass = Scene.v().getSootClass(s);
+            if (sootClass.isPhantom() || sootClass.isInterface() || sootClass.isAbstract()) {
+                continue;
+            }
+
+            RefType type = sootClass.getType();
+            Local local = Jimple.v().newLocal("component" + localCount++, type);
+            body.getLocals().add(local);
+            body.getUnits().add(Jimple.v().newAssignStmt(local, Jimple.v().newNewExpr(type)));
+
+            ArrayList<SootMethod> sootMethods = new ArrayList<>(sootClass.getMethods());
+            for (SootMethod m : sootMethods) {
+                if (!m.isConcrete() || m.isStatic() || m.isPrivate() || m.isStaticInitializer()) {
+                    continue;
+                }
+
+                List<Value> args = getDefaultValues(m.getParameterTypes());
+                InvokeExpr invokeExpr = m.isConstructor() ? Jimple.v().newSpecialInvokeExpr(local, m.makeRef(), args) : Jimple.v().newVirtualInvokeExpr(local, m.makeRef(), args);
+                body.getUnits().add(Jimple.v().newInvokeStmt(invokeExpr));
+            }
+        }
+
+        body.getUnits().add(Jimple.v().newReturnVoidStmt());
+
+        return mainMethod;
+    }
+
+    private static List<Value> getDefaultValues(List<Type> types) {
+        ArrayList<Value> values = new ArrayList<>();
+        for (Type t : types) {
+            if (t instanceof RefLikeType) {
+                values.add(NullConstant.v());
+            } else if (t instanceof LongType) {
+                values.add(LongConstant.v(0));
+            } else if (t instanceof FloatType) {
+                values.add(FloatConstant.v(0));
+            } else if (t instanceof DoubleType) {
+                values.add(DoubleConstant.v(0));
+            } else {
+                values.add(IntConstant.v(0));
+            }
+        }
+
+        return values;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.ccadroid;
+
+import com.ccadroid.bench.macro.SyntheticApkGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class EngineMainTest {
+    private static final String[] IGNORED_PREFIXES = {"[*] Analyzing APK", "[*] Metrics", "[*] Platform classes", "[*] Target classes"};
+    private static File apkFile;
+    @TempDir
+    static Path tempDir;
+
+    @BeforeAll
+    public static void setUp() throws IOException {
+        assumeTrue(System.getenv("ANDROID_SDK_HOME") != null, "ANDROID_SDK_HOME is not set");
+
+        apkFile = SyntheticApkGenerator.generate(tempDir.resolve("corpus"), 200, 10);
+    }
+
+    @Test
+    public void parallelRuleCheckingMatchesSequential() throws IOException, InterruptedException {
+        ArrayList<String> lines1 = runEngine("sequential", Map.of("check.parallelism", "1"));
+        ArrayList<String> lines2 = runEngine("parallel", Map.of("check.parallelism", "4"));
+
+        assertFindings(lines1);
+        assertEquals(lines1, lines2);
+    }
+
+    @Test
+    public void streamingRuleCheckingMatchesBatch() throws IOException, InterruptedException {
+        ArrayList<String> lines1 = runEngine("batch", Map.of("check.streaming", "false"));
+        ArrayList<String> lines2 = runEngine("streaming", Map.of("check.streaming", "true"));
+
+        assertFindings(lines1);
+        assertEquals(lines1, lines2);
+    }
+
+    private static void assertFindings(ArrayList<String> lines) {
+        long count = lines.stream().filter(l -> l.startsWith("[*] Rule ID")).count();
+        assertTrue(count > 0, "no findings");
+        assertFalse(lines.stream().anyMatch(l -> l.contains("ERROR")), "engine reported an error");
+    }
+
+    private static ArrayList<String> runEngine(String name, Map<String, String> properties) throws IOException, InterruptedException { // for configurations read once per JVM
+        Path workDir = Files.createDirectories(tempDir.resolve(name));
+        Path configDir = Files.createDirectories(workDir.resolve("config"));
+        writeConfig(configDir.resolve("config.properties"), properties);
+
+        String javaPath = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = configDir + File.pathSeparator + System.getProperty("java.class.path");
+        String ruleDirPath = new File("rule").getAbsolutePath();
+        Path outputPath = workDir.resolve("output.txt");
+
+        ProcessBuilder builder = new ProcessBuilder(javaPath, "-cp", classPath, EngineMain.class.getName(), apkFile.getPath(), ruleDirPath);
+        builder.directory(workDir.toFile());
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(outputPath.toFile());
+
+        Process process = builder.start();
+        int exitCode = process.waitFor();
+        assertEquals(0, exitCode, "engine failed, see " + outputPath);
+
+        ArrayList<String> lines = new ArrayList<>();
+        List<String> outputLines = Files.readAllLines(outputPath, StandardCharsets.UTF_8);
+        for (String l : outputLines) {
+            if (Arrays.stream(IGNORED_PREFIXES).noneMatch(l::startsWith)) {
+                lines.add(l);
+            }
+        }
+
+        Collections.sort(lines); // for findings printed in a different order
+
+        return lines;
+    }
+
+    private static void writeConfig(Path configPath, Map<String, String> properties) throws IOException {
+        String config;
+        try (InputStream inputStream = EngineMain.class.getClassLoader().getResourceAsStream("config.properties")) {
+            assertNotNull(inputStream);
+            config = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (String l : config.split("\n")) {
+            String key = l.split("=", 2)[0];
+            String value = properties.get(key);
+            builder.append((value == null) ? l : key + "=" + value).append('\n');
+        }
+
+        Files.writeString(configPath, builder.toString());
+    }
+}
\ No newline at end of file
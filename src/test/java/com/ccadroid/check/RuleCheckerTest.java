@@ -0,0 +1,182 @@
+package com.ccadroid.check;
+
+import com.ccadroid.slice.SliceContent;
+import com.ccadroid.slice.SliceDatabase;
+import com.ccadroid.slice.SliceLine;
+import com.ccadroid.util.Configuration;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.*;
+
+import static com.ccadroid.check.RuleConstants.SLICING_SIGNATURES;
+import static com.ccadroid.slice.SliceConstants.*;
+import static com.ccadroid.util.soot.SootUnit.ASSIGN_VARIABLE_CONSTANT;
+import static com.ccadroid.util.soot.SootUnit.STATIC_INVOKE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RuleCheckerTest {
+    private static final String CIPHER_INIT = "<javax.crypto.Cipher: void init(int,java.security.Key)>";
+    private static final String CALLER_NAME_FORMAT = "<com.example.C%d: void run()>";
+    private static SliceDatabase sliceDatabase;
+    private RuleChecker ruleChecker;
+
+    @BeforeAll
+    public static void setUp() {
+        Configuration.loadConfig();
+
+        sliceDatabase = SliceDatabase.getInstance();
+    }
+
+    @BeforeEach
+    public void initialize() {
+        sliceDatabase.initialize();
+
+        ruleChecker = new RuleChecker();
+        ruleChecker.loadRules(new File("rule"));
+    }
+
+    @Test
+    public void fingerprintsClassifyLikeLineSets() {
+        Random random = new Random(7);
+        ArrayList<SliceLine> linePool = createLinePool();
+        for (int i = 0; i < 40; i++) {
+            String leafId = "leaf" + i;
+            String callerName = String.format(CALLER_NAME_FORMAT, i);
+            int relatedCount = random.nextInt(5);
+
+            ArrayList<String> relatedNodeIds = (relatedCount > 0) ? new ArrayList<>(List.of(leafId + "-0")) : new ArrayList<>();
+
+            ArrayList<SliceLine> leafContent = createContent(linePool, random);
+            sliceDatabase.insert(leafId, relatedNodeIds, callerName, CIPHER_INIT, 0, new ArrayList<>(List.of(-1)), new ArrayList<>(), leafContent);
+            for (int j = 0; j < relatedCount; j++) {
+                ArrayList<String> nextIds = (j + 1 < relatedCount) ? new ArrayList<>(List.of(leafId + "-" + (j + 1))) : new ArrayList<>();
+                sliceDatabase.insert(leafId + "-" + j, nextIds, callerName, "return", 0, new ArrayList<>(List.of(-1)), new ArrayList<>(), createContent(linePool, random));
+            }
+
+            ArrayList<SliceLine> mergedContent = new ArrayList<>(leafContent);
+            mergedContent.addAll(createContent(linePool, random));
+            sliceDatabase.insert(leafId, CIPHER_INIT, new ArrayList<>(List.of(-1)), new ArrayList<>(), mergedContent);
+        }
+
+        ArrayList<JSONObject> mergedSlices = sliceDatabase.selectAll(List.of(String.format("/%s==null", CALLER_NAME)));
+        HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> sliceMap = ruleChecker.classifySlices(mergedSlices);
+        assertEquals(new File("rule").listFiles().length, sliceMap.size());
+
+        ArrayList<JSONObject> rules = new ArrayList<>(sliceMap.keySet());
+        HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> expectedSliceMap = classifyByLineSets(rules, mergedSlices);
+        assertEquals(expectedSliceMap, sliceMap);
+
+        int targetSliceCount = 0;
+        for (HashMap<String, ArrayList<JSONObject>> m : sliceMap.values()) {
+            for (ArrayList<JSONObject> l : m.values()) {
+                targetSliceCount += l.size();
+            }
+        }
+
+        assertTrue(targetSliceCount > 0);
+    }
+
+    private HashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> classifyByLineSets(ArrayList<JSONObject> rules, ArrayList<JSONObject> mergedSlices) { // for the list-based containsAll and retainAll
+        LinkedHashMap<JSONObject, HashMap<String, ArrayList<JSONObject>>> slicesMap = new LinkedHashMap<>();
+
+        for (JSONObject s1 : mergedSlices) {
+            String nodeId = s1.getString(NODE_ID);
+            String targetStatement = s1.getString(TARGET_STATEMENT);
+            List<Object> targetParamNumbers = s1.getJSONArray(TARGET_PARAM_NUMBERS).toList();
+            SliceContent content = sliceDatabase.getContent(s1);
+
+            for (JSONObject r : rules) {
+                HashMap<String, ArrayList<JSONObject>> map = slicesMap.containsKey(r) ? slicesMap.get(r) : new HashMap<>();
+                ArrayList<JSONObject> targetSlices = new ArrayList<>();
+                HashSet<SliceLine> tempContent = new HashSet<>(content.getLines());
+
+                Map<String, Object> signatureMap = r.getJSONObject(SLICING_SIGNATURES).toMap();
+                for (Map.Entry<String, Object> e : signatureMap.entrySet()) {
+                    if (!targetStatement.equals(e.getKey()) || !targetParamNumbers.equals(e.getValue())) {
+                        continue;
+                    }
+
+                    ArrayList<JSONObject> result2 = getRelatedSlices(s1);
+                    for (JSONObject s2 : result2) {
+                        SliceContent content2 = sliceDatabase.getContent(s2);
+                        if (content.equals(content2)) {
+                            targetSlices.add(s2);
+                            continue;
+                        }
+
+                        ArrayList<SliceLine> tempContent2 = new ArrayList<>(content2.getLines());
+                        if (tempContent.containsAll(tempContent2)) {
+                            continue;
+                        }
+
+                        tempContent.retainAll(tempContent2);
+                        if (!tempContent.isEmpty()) {
+                            continue;
+                        }
+
+                        tempContent.addAll(tempContent2);
+                        targetSlices.add(s2);
+                    }
+
+                    map.put(nodeId, targetSlices);
+                }
+
+                slicesMap.put(r, map);
+            }
+        }
+
+        return slicesMap;
+    }
+
+    private ArrayList<JSONObject> getRelatedSlices(JSONObject mergedSlice) { // for one merged slice and a chain of method slices
+        ArrayList<JSONObject> slices = new ArrayList<>();
+        slices.add(mergedSlice);
+
+        String nodeId = mergedSlice.getString(NODE_ID);
+        JSONObject slice = selectMethodSlice(nodeId);
+        JSONArray relatedNodeIds = slice.getJSONArray(RELATED_NODE_IDS);
+        while (!relatedNodeIds.isEmpty()) {
+            slice = selectMethodSlice(relatedNodeIds.getString(0));
+            slices.add(slice);
+            relatedNodeIds = slice.getJSONArray(RELATED_NODE_IDS);
+        }
+
+        return slices;
+    }
+
+    private JSONObject selectMethodSlice(String nodeId) {
+        List<String> query = List.of(String.format("%s==%s", NODE_ID, nodeId), String.format("/%s!=null", CALLER_NAME));
+
+        return sliceDatabase.selectOne(query);
+    }
+
+    private ArrayList<SliceLine> createLinePool() {
+        ArrayList<SliceLine> lines = new ArrayList<>();
+        String[] algorithms = {"AES", "DES", "RC4"};
+        for (int i = 0; i < 6; i++) {
+            String callerName = String.format(CALLER_NAME_FORMAT, i % 2);
+            String algorithm = algorithms[i % algorithms.length];
+            String unitStr = "$r1 = staticinvoke <javax.crypto.Cipher: javax.crypto.Cipher getInstance(java.lang.String)>(\"" + algorithm + "\")";
+            lines.add(new SliceLine(unitStr, STATIC_INVOKE, callerName, i, List.of(algorithm)));
+            lines.add(new SliceLine("$i" + i + " = " + i, ASSIGN_VARIABLE_CONSTANT, callerName, i, null));
+        }
+
+        return lines;
+    }
+
+    private ArrayList<SliceLine> createContent(ArrayList<SliceLine> linePool, Random random) {
+        ArrayList<SliceLine> content = new ArrayList<>();
+        int size = 1 + random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            content.add(linePool.get(random.nextInt(linePool.size())));
+        }
+
+        return content;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.util.Configuration;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import soot.*;
+import soot.jimple.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstantPropagatorTest {
+    private static final Jimple jimple = Jimple.v();
+    private static ConstantPropagator constantPropagator;
+
+    @BeforeAll
+    public static void setUp() {
+        Configuration.loadConfig();
+
+        constantPropagator = ConstantPropagator.getInstance();
+    }
+
+    @Test
+    public void branchIntoFoldedStaticFieldReadIsReachable() {
+        Local i0 = jimple.newLocal("i0", IntType.v());
+        Local r0 = jimple.newLocal("$r0", RefType.v("java.lang.String"));
+        SootClass appClass = new SootClass("com.example.App", Modifier.PUBLIC);
+        SootFieldRef fieldRef = Scene.v().makeFieldRef(appClass, "MODE", RefType.v("java.lang.String"), true);
+
+        Unit originalUnit = jimple.newAssignStmt(r0, jimple.newStaticFieldRef(fieldRef));
+        Unit foldedUnit = jimple.newAssignStmt(r0, StringConstant.v("AES"));
+        Unit returnUnit = jimple.newReturnStmt(r0);
+        ArrayList<Unit> wholeUnit = new ArrayList<>(List.of(
+                jimple.newIdentityStmt(i0, jimple.newParameterRef(IntType.v(), 0)),
+                jimple.newIfStmt(jimple.newEqExpr(i0, IntConstant.v(0)), originalUnit),
+                jimple.newAssignStmt(r0, StringConstant.v("DES")),
+                jimple.newReturnStmt(r0),
+                foldedUnit,
+                returnUnit
+        ));
+
+        HashMap<Unit, Unit> replacedUnitMap = new HashMap<>();
+        replacedUnitMap.put(originalUnit, foldedUnit);
+
+        ConstantPropagator.Result result = constantPropagator.propagate(wholeUnit, replacedUnitMap, new HashMap<>());
+        assertTrue(result.isReachable(foldedUnit));
+        assertTrue(result.getUnreachableUnits().isEmpty());
+        assertEquals("AES", result.getConstant(returnUnit, r0));
+    }
+
+    @Test
+    public void unresolvedTargetKeepsAllUnitsReachable() {
+        Local i0 = jimple.newLocal("i0", IntType.v());
+        Unit missingUnit = jimple.newNopStmt();
+        Unit tailUnit = jimple.newReturnStmt(i0);
+        ArrayList<Unit> wholeUnit = new ArrayList<>(List.of(
+                jimple.newIdentityStmt(i0, jimple.newParameterRef(IntType.v(), 0)),
+                jimple.newGotoStmt(missingUnit),
+                jimple.newReturnVoidStmt(),
+                tailUnit
+        ));
+
+        ConstantPropagator.Result result = constantPropagator.propagate(wholeUnit, new HashMap<>(), new HashMap<>());
+        assertTrue(result.isReachable(tailUnit));
+        assertTrue(result.getUnreachableUnits().isEmpty());
+    }
+
+    @Test
+    public void constantBranchIsPruned() {
+        Local i0 = jimple.newLocal("i0", IntType.v());
+        Local r0 = jimple.newLocal("$r0", RefType.v("java.lang.String"));
+        Unit targetUnit = jimple.newAssignStmt(r0, StringConstant.v("AES"));
+        Unit fallUnit = jimple.newAssignStmt(r0, StringConstant.v("DES"));
+        ArrayList<Unit> wholeUnit = new ArrayList<>(List.of(
+                jimple.newIdentityStmt(i0, jimple.newParameterRef(IntType.v(), 0)),
+                jimple.newIfStmt(jimple.newEqExpr(i0, IntConstant.v(0)), targetUnit),
+                fallUnit,
+                jimple.newReturnStmt(r0),
+                targetUnit,
+                jimple.newReturnStmt(r0)
+        ));
+
+        HashMap<Integer, Object> paramConstantMap = new HashMap<>();
+        paramConstantMap.put(0, 1);
+
+        ConstantPropagator.Result result = constantPropagator.propagate(wholeUnit, new HashMap<>(), paramConstantMap);
+        assertTrue(result.isReachable(fallUnit));
+        assertFalse(result.isReachable(targetUnit));
+        assertEquals(List.of(targetUnit, wholeUnit.get(5)), result.getUnreachableUnits());
+
+        paramConstantMap.put(0, 0);
+        result = constantPropagator.propagate(wholeUnit, new HashMap<>(), paramConstantMap);
+        assertFalse(result.isReachable(fallUnit));
+        assertTrue(result.isReachable(targetUnit));
+    }
+
+    @Test
+    public void loopCounterIsNotConstant() {
+        Local i0 = jimple.newLocal("i0", IntType.v());
+        Local i1 = jimple.newLocal("i1", IntType.v());
+        Unit endUnit = jimple.newReturnStmt(i0);
+        Unit headUnit = jimple.newIfStmt(jimple.newGeExpr(i0, IntConstant.v(10)), endUnit);
+        Unit initUnit = jimple.newAssignStmt(i0, IntConstant.v(0));
+        Unit stepUnit = jimple.newAssignStmt(i0, jimple.newAddExpr(i0, i1));
+        ArrayList<Unit> wholeUnit = new ArrayList<>(List.of(
+                jimple.newAssignStmt(i1, IntConstant.v(1)),
+                initUnit,
+                headUnit,
+                stepUnit,
+                jimple.newGotoStmt(headUnit),
+                endUnit
+        ));
+
+        ConstantPropagator.Result result = constantPropagator.propagate(wholeUnit, new HashMap<>(), new HashMap<>());
+        assertEquals(0, result.getAssignedConstant(initUnit));
+        assertNull(result.getAssignedConstant(stepUnit));
+        assertNull(result.getConstant(endUnit, i0));
+        assertEquals(1, result.getConstant(stepUnit, i1));
+        assertTrue(result.isReachable(endUnit));
+    }
+
+    @Test
+    public void exceptionHandlerIsReachableWithoutConstants() {
+        Local i0 = jimple.newLocal("i0", IntType.v());
+        Local r1 = jimple.newLocal("$r1", RefType.v("java.lang.Throwable"));
+        Unit returnUnit = jimple.newReturnStmt(i0);
+        Unit handlerReturnUnit = jimple.newReturnStmt(i0);
+        ArrayList<Unit> wholeUnit = new ArrayList<>(List.of(
+                jimple.newAssignStmt(i0, IntConstant.v(1)),
+                returnUnit,
+                jimple.newIdentityStmt(r1, jimple.newCaughtExceptionRef()),
+                handlerReturnUnit
+        ));
+
+        ConstantPropagator.Result result = constantPropagator.propagate(wholeUnit, new HashMap<>(), new HashMap<>());
+        assertTrue(result.isReachable(handlerReturnUnit));
+        assertEquals(1, result.getConstant(returnUnit, i0));
+        assertNull(result.getConstant(handlerReturnUnit, i0));
+    }
+
+    @Test
+    public void aliasedByteArrayIsNotConstant() {
+        ArrayType byteArrayType = ArrayType.v(ByteType.v(), 1);
+        Local r3 = jimple.newLocal("$r3", byteArrayType);
+        Local r4 = jimple.newLocal("$r4", byteArrayType);
+        Local i0 = jimple.newLocal("i0", IntType.v());
+        Unit readUnit = jimple.newAssignStmt(i0, jimple.newArrayRef(r3, IntConstant.v(0)));
+        ArrayList<Unit> wholeUnit = new ArrayList<>(List.of(
+                jimple.newAssignStmt(r3, jimple.newNewArrayExpr(ByteType.v(), IntConstant.v(2))),
+                jimple.newAssignStmt(jimple.newArrayRef(r3, IntConstant.v(0)), IntConstant.v(1)),
+                jimple.newAssignStmt(r4, r3),
+                jimple.newAssignStmt(jimple.newArrayRef(r4, IntConstant.v(0)), IntConstant.v(2)),
+                readUnit,
+                jimple.newReturnStmt(i0)
+        ));
+
+        ConstantPropagator.Result result = constantPropagator.propagate(wholeUnit, new HashMap<>(), new HashMap<>());
+        assertNull(result.getAssignedConstant(readUnit));
+        assertNull(result.getConstant(readUnit, r3));
+
+        wholeUnit.remove(3);
+        wholeUnit.remove(2);
+        result = constantPropagator.propagate(wholeUnit, new HashMap<>(), new HashMap<>());
+        assertEquals(1, result.getAssignedConstant(readUnit));
+        assertArrayEquals(new byte[]{1, 0}, (byte[]) result.getConstant(readUnit, r3));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.util.Configuration;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static com.ccadroid.slice.SliceConstants.*;
+import static com.ccadroid.slice.SliceQuery.*;
+import static com.ccadroid.util.soot.SootUnit.ASSIGN_VARIABLE_CONSTANT;
+import static com.ccadroid.util.soot.SootUnit.STATIC_INVOKE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SliceDatabaseTest {
+    private static final String[] TARGET_STATEMENTS = {"<javax.crypto.Cipher: void init(int,java.security.Key)>", "<javax.crypto.spec.SecretKeySpec: void <init>(byte[],java.lang.String)>", "return"};
+    private static final int CALLER_COUNT = 7;
+    private static final int SLICE_COUNT = 60;
+    private static SliceDatabase sliceDatabase;
+
+    @BeforeAll
+    public static void setUp() {
+        Configuration.loadConfig();
+
+        sliceDatabase = SliceDatabase.getInstance();
+    }
+
+    @BeforeEach
+    public void initialize() {
+        sliceDatabase.initialize();
+
+        Random random = new Random(42);
+        for (int i = 0; i < SLICE_COUNT; i++) { // startUnitIndex records the insertion order
+            String nodeId = "node" + i;
+            String callerName = getCallerName(random.nextInt(CALLER_COUNT));
+            String targetStatement = TARGET_STATEMENTS[random.nextInt(TARGET_STATEMENTS.length)];
+            ArrayList<SliceLine> content = createContent(callerName, random);
+            ArrayList<String> relatedNodeIds = new ArrayList<>();
+            if (i > 0) {
+                relatedNodeIds.add("node" + random.nextInt(i));
+            }
+
+            sliceDatabase.insert(nodeId, relatedNodeIds, callerName, targetStatement, i, new ArrayList<>(List.of(-1)), new ArrayList<>(), content);
+            if (random.nextInt(3) == 0) {
+                sliceDatabase.insert(nodeId, targetStatement, new ArrayList<>(List.of(-1)), new ArrayList<>(), content);
+            }
+        }
+    }
+
+    @Test
+    public void batchedLookupsMatchFullScan() {
+        assertBatchedLookups();
+    }
+
+    @Test
+    public void batchedLookupsMatchFullScanAfterDelete() {
+        ArrayList<JSONObject> slices = scan(o -> o.has(CALLER_NAME) && o.getInt(START_UNIT_INDEX) % 3 == 0);
+        slices.addAll(scan(o -> !o.has(CALLER_NAME) && o.getString(NODE_ID).endsWith("1")));
+        sliceDatabase.delete(slices);
+
+        for (JSONObject o : slices) {
+            assertFalse(scan(s -> s == o).contains(o));
+        }
+
+        assertBatchedLookups();
+    }
+
+    @Test
+    public void batchedLookupsMatchFullScanAfterUpdate() {
+        ArrayList<JSONObject> slices = scan(o -> o.has(CALLER_NAME) && o.getInt(START_UNIT_INDEX) % 4 == 0);
+        for (JSONObject o : slices) {
+            sliceDatabase.update(o, CALLER_NAME, getCallerName(0));
+        }
+
+        assertBatchedLookups();
+    }
+
+    @Test
+    public void queriesMatchFullScan() {
+        String nodeId = "node7";
+        String callerName = getCallerName(2);
+        String targetStatement = TARGET_STATEMENTS[0];
+
+        assertQuery(eq(NODE_ID, nodeId), o -> nodeId.equals(o.opt(NODE_ID)));
+        assertQuery(eq(NODE_ID, nodeId).and(isNull(CALLER_NAME)), o -> nodeId.equals(o.opt(NODE_ID)) && !o.has(CALLER_NAME));
+        assertQuery(eq(CALLER_NAME, callerName).and(eq(TARGET_STATEMENT, targetStatement)), o -> callerName.equals(o.opt(CALLER_NAME)) && targetStatement.equals(o.opt(TARGET_STATEMENT)));
+        assertQuery(eq(NODE_ID, "node3").and(eq(CALLER_NAME, callerName)), o -> "node3".equals(o.opt(NODE_ID)) && callerName.equals(o.opt(CALLER_NAME)));
+        assertQuery(notEq(TARGET_STATEMENT, "return").and(isNotNull(CALLER_NAME)), o -> !"return".equals(o.opt(TARGET_STATEMENT)) && o.has(CALLER_NAME));
+        assertQuery(isNull(CALLER_NAME), o -> !o.has(CALLER_NAME));
+        assertQuery(containsToken(UNIT_STRING, "DES"), o -> containsUnitString(o, "DES"));
+        assertQuery(eq(CALLER_NAME, callerName).and(containsToken(UNIT_STRING, "AES")), o -> callerName.equals(o.opt(CALLER_NAME)) && containsUnitString(o, "AES"));
+        assertQuery(eq(CALLER_NAME, getCallerName(CALLER_COUNT)), o -> false);
+    }
+
+    @Test
+    public void parsedQueriesMatchBuiltQueries() {
+        String callerName = getCallerName(3);
+
+        SliceQuery query1 = SliceQuery.parse(List.of(CALLER_NAME + "==" + callerName, TARGET_STATEMENT + "!=return"));
+        SliceQuery query2 = eq(CALLER_NAME, callerName).and(notEq(TARGET_STATEMENT, "return"));
+        assertEquals(toIdentitySet(sliceDatabase.selectAll(query2)), toIdentitySet(sliceDatabase.selectAll(query1)));
+
+        query1 = SliceQuery.parse(List.of(NODE_ID + "==node5", "/" + CALLER_NAME + "==null"));
+        query2 = eq(NODE_ID, "node5").and(isNull(CALLER_NAME));
+        assertEquals(toIdentitySet(sliceDatabase.selectAll(query2)), toIdentitySet(sliceDatabase.selectAll(query1)));
+
+        query1 = SliceQuery.parse(List.of(UNIT_STRING + " in DES"));
+        query2 = containsToken(UNIT_STRING, "DES");
+        assertEquals(toIdentitySet(sliceDatabase.selectAll(query2)), toIdentitySet(sliceDatabase.selectAll(query1)));
+    }
+
+    private void assertQuery(SliceQuery query, Predicate<JSONObject> predicate) {
+        assertEquals(toIdentitySet(scan(predicate)), toIdentitySet(sliceDatabase.selectAll(query)));
+    }
+
+    private boolean containsUnitString(JSONObject slice, String token) {
+        SliceContent content = sliceDatabase.getContent(slice);
+        for (SliceLine l : content) {
+            if (l.getUnitString().contains(token)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void assertBatchedLookups() {
+        ArrayList<String> nodeIds = new ArrayList<>();
+        for (int i = 0; i < SLICE_COUNT + 5; i++) {
+            nodeIds.add("node" + i);
+        }
+
+        HashMap<String, JSONObject> expectedNodeIdMap = new HashMap<>();
+        for (String id : nodeIds) {
+            ArrayList<JSONObject> slices = scan(o -> o.has(CALLER_NAME) && o.getString(NODE_ID).equals(id));
+            if (!slices.isEmpty()) {
+                expectedNodeIdMap.put(id, slices.get(0));
+            }
+
+            ArrayList<JSONObject> mergedSlices = scan(o -> !o.has(CALLER_NAME) && o.getString(NODE_ID).equals(id));
+            assertEquals(mergedSlices, sliceDatabase.selectMergedSlices(id));
+        }
+
+        assertEquals(expectedNodeIdMap, sliceDatabase.selectByNodeIds(nodeIds));
+
+        ArrayList<String> callerNames = new ArrayList<>();
+        HashMap<String, ArrayList<JSONObject>> expectedCallerNameMap = new HashMap<>();
+        for (int i = 0; i <= CALLER_COUNT; i++) {
+            String callerName = getCallerName(i);
+            callerNames.add(callerName);
+
+            ArrayList<JSONObject> slices = scan(o -> callerName.equals(o.opt(CALLER_NAME)));
+            if (!slices.isEmpty()) {
+                expectedCallerNameMap.put(callerName, slices);
+            }
+        }
+
+        HashMap<String, JSONObject> callerNameMap = sliceDatabase.selectByCallerNames(callerNames);
+        assertEquals(expectedCallerNameMap.keySet(), callerNameMap.keySet());
+        for (Map.Entry<String, JSONObject> e : callerNameMap.entrySet()) { // any slice of the caller
+            assertTrue(expectedCallerNameMap.get(e.getKey()).contains(e.getValue()));
+        }
+
+        HashMap<String, HashSet<String>> targetStatementsMap = new HashMap<>();
+        targetStatementsMap.put(getCallerName(1), new HashSet<>(List.of(TARGET_STATEMENTS[0], TARGET_STATEMENTS[2])));
+        targetStatementsMap.put(getCallerName(4), new HashSet<>(List.of(TARGET_STATEMENTS[1])));
+        targetStatementsMap.put(getCallerName(CALLER_COUNT), new HashSet<>(List.of(TARGET_STATEMENTS[0])));
+
+        ArrayList<JSONObject> expectedSlices = scan(o -> {
+            HashSet<String> targetStatements = o.has(CALLER_NAME) ? targetStatementsMap.get(o.getString(CALLER_NAME)) : null;
+
+            return targetStatements != null && targetStatements.contains(o.getString(TARGET_STATEMENT));
+        });
+        assertEquals(toIdentitySet(expectedSlices), toIdentitySet(sliceDatabase.selectByCallerStatements(targetStatementsMap)));
+    }
+
+    private ArrayList<JSONObject> scan(Predicate<JSONObject> predicate) { // for rows in insertion order
+        ArrayList<JSONObject> result = new ArrayList<>();
+        ArrayList<JSONObject> slices = sliceDatabase.selectAll(List.of("/" + NODE_ID + "!=null"));
+        for (JSONObject o : slices) {
+            if (predicate.test(o)) {
+                result.add(o);
+            }
+        }
+
+        result.sort(Comparator.comparingInt(o -> o.optInt(START_UNIT_INDEX, Integer.MAX_VALUE))); // for merged slices last
+
+        return result;
+    }
+
+    private Set<JSONObject> toIdentitySet(Collection<JSONObject> slices) {
+        Set<JSONObject> set = Collections.newSetFromMap(new IdentityHashMap<>());
+        set.addAll(slices);
+
+        return set;
+    }
+
+    private String getCallerName(int index) {
+        return "<com.example.C" + index + ": void run()>";
+    }
+
+    private ArrayList<SliceLine> createContent(String callerName, Random random) {
+        ArrayList<SliceLine> content = new ArrayList<>();
+        int size = 1 + random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            if (random.nextBoolean()) {
+                String algorithm = random.nextBoolean() ? "AES" : "DES";
+                String unitStr = "$r" + i + " = staticinvoke <javax.crypto.Cipher: javax.crypto.Cipher getInstance(java.lang.String)>(\"" + algorithm + "\")";
+                content.add(new SliceLine(unitStr, STATIC_INVOKE, callerName, i, List.of(algorithm)));
+            } else {
+                content.add(new SliceLine("$i" + i + " = " + random.nextInt(10), ASSIGN_VARIABLE_CONSTANT, callerName, i, null));
+            }
+        }
+
+        return content;
+    }
+}
\ No newline at end of file
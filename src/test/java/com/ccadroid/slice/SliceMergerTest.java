@@ -0,0 +1,172 @@
+package com.ccadroid.slice;
+
+import com.ccadroid.inspect.SlicingCriterion;
+import com.ccadroid.util.Configuration;
+import org.graphstream.graph.Node;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static com.ccadroid.util.graph.BaseGraph.EdgeType.UPWARD;
+import static com.ccadroid.util.soot.SootUnit.ASSIGN_VARIABLE_CONSTANT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SliceMergerTest {
+    private static final String TARGET_STATEMENT = "<javax.crypto.Cipher: void init(int,java.security.Key)>";
+    private static SliceDatabase sliceDatabase;
+    private static SliceMerger sliceMerger;
+    private HashMap<String, ArrayList<String>> parentIdsMap;
+
+    @BeforeAll
+    public static void setUp() {
+        Configuration.loadConfig();
+
+        sliceDatabase = SliceDatabase.getInstance();
+        sliceMerger = SliceMerger.getInstance();
+    }
+
+    @BeforeEach
+    public void initialize() {
+        sliceDatabase.initialize();
+        parentIdsMap = new HashMap<>();
+    }
+
+    @Test
+    public void sharedPrefixesMergeLikeSeparatePaths() {
+        SlicingCriterion slicingCriterion = createSlicingCriterion("<com.example.Shared: void leaf()>");
+        String leafId = String.valueOf(slicingCriterion.hashCode());
+        Node leaf = addSlice(leafId, 0, 3);
+
+        // leaf <- p1, p2; p1 <- g1, g2; p2 <- g2; g2 <- r1, r2
+        Node p1 = addParent(leaf, "shared-p1", 1, 2);
+        Node p2 = addParent(leaf, "shared-p2", 1, 1);
+        addParent(p1, "shared-g1", 2, 2);
+        Node g2 = addParent(p1, "shared-g2", 2, 4);
+        addEdge(p2, g2);
+        addParent(g2, "shared-r1", 3, 1);
+        addParent(g2, "shared-r2", 3, 2);
+
+        sliceMerger.mergeSlices(slicingCriterion);
+
+        ArrayList<ArrayList<String>> expectedContents = getExpectedContents(leafId);
+        assertEquals(5, expectedContents.size());
+        assertEquals(expectedContents, getMergedContents(leafId));
+    }
+
+    @Test
+    public void singlePathMergesInCallerOrder() {
+        SlicingCriterion slicingCriterion = createSlicingCriterion("<com.example.Single: void leaf()>");
+        String leafId = String.valueOf(slicingCriterion.hashCode());
+        Node leaf = addSlice(leafId, 0, 2);
+        Node parent = addParent(leaf, "single-p", 1, 2);
+        addParent(parent, "single-g", 2, 1);
+
+        sliceMerger.mergeSlices(slicingCriterion);
+
+        ArrayList<String> expectedContent = new ArrayList<>();
+        expectedContent.addAll(getUnitStrings("single-g", 1));
+        expectedContent.addAll(getUnitStrings("single-p", 2));
+        expectedContent.addAll(getUnitStrings(leafId, 2));
+        assertEquals(List.of(expectedContent), getMergedContents(leafId));
+    }
+
+    private SlicingCriterion createSlicingCriterion(String callerName) {
+        SlicingCriterion slicingCriterion = new SlicingCriterion();
+        slicingCriterion.setCallerName(callerName);
+        slicingCriterion.setTargetStatement(TARGET_STATEMENT);
+        slicingCriterion.setTargetUnitIndex(0);
+        slicingCriterion.setTargetParamNumbers(new ArrayList<>(List.of(-1)));
+        slicingCriterion.setTargetVariables(new ArrayList<>());
+
+        return slicingCriterion;
+    }
+
+    private Node addParent(Node child, String id, int level, int lineCount) {
+        Node parent = addSlice(id, level, lineCount);
+        addEdge(child, parent);
+
+        return parent;
+    }
+
+    private void addEdge(Node child, Node parent) {
+        sliceMerger.addEdge(child, parent, UPWARD);
+
+        ArrayList<String> parentIds = parentIdsMap.computeIfAbsent(child.getId(), k -> new ArrayList<>());
+        parentIds.add(parent.getId());
+    }
+
+    private Node addSlice(String id, int level, int lineCount) {
+        String callerName = "<com.example.Caller: void " + id.replace('-', '_') + "()>";
+        ArrayList<SliceLine> content = new ArrayList<>();
+        ArrayList<String> unitStrings = getUnitStrings(id, lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            content.add(new SliceLine(unitStrings.get(i), ASSIGN_VARIABLE_CONSTANT, callerName, i, null));
+        }
+
+        sliceDatabase.insert(id, new ArrayList<>(), callerName, TARGET_STATEMENT, lineCount - 1, new ArrayList<>(List.of(-1)), new ArrayList<>(), content);
+
+        return sliceMerger.addNode(id, id, level);
+    }
+
+    private ArrayList<String> getUnitStrings(String id, int lineCount) {
+        ArrayList<String> unitStrings = new ArrayList<>();
+        for (int i = 0; i < lineCount; i++) {
+            unitStrings.add("$r" + i + " = \"" + id + "\"");
+        }
+
+        return unitStrings;
+    }
+
+    private ArrayList<ArrayList<String>> getExpectedContents(String leafId) { // for each caller path merged on its own
+        ArrayList<ArrayList<String>> contents = new ArrayList<>();
+        ArrayDeque<ArrayList<String>> paths = new ArrayDeque<>();
+        paths.add(new ArrayList<>(List.of(leafId)));
+
+        while (!paths.isEmpty()) {
+            ArrayList<String> path = paths.poll();
+            ArrayList<String> parentIds = parentIdsMap.get(path.get(0));
+            if (parentIds == null) {
+                ArrayList<String> content = new ArrayList<>();
+                for (String id : path) {
+                    JSONObject slice = sliceDatabase.selectByNodeIds(List.of(id)).get(id);
+                    for (SliceLine l : sliceDatabase.getContent(slice)) {
+                        content.add(l.getUnitString());
+                    }
+                }
+
+                contents.add(content);
+                continue;
+            }
+
+            for (String id : parentIds) {
+                ArrayList<String> newPath = new ArrayList<>(path);
+                newPath.add(0, id);
+                paths.add(newPath);
+            }
+        }
+
+        contents.sort(Comparator.comparing(Object::toString));
+
+        return contents;
+    }
+
+    private ArrayList<ArrayList<String>> getMergedContents(String leafId) {
+        ArrayList<ArrayList<String>> contents = new ArrayList<>();
+        ArrayList<JSONObject> mergedSlices = sliceDatabase.selectMergedSlices(leafId);
+        for (JSONObject o : mergedSlices) {
+            ArrayList<String> content = new ArrayList<>();
+            for (SliceLine l : sliceDatabase.getContent(o)) {
+                content.add(l.getUnitString());
+            }
+
+            contents.add(content);
+        }
+
+        contents.sort(Comparator.comparing(Object::toString));
+
+        return contents;
+    }
+}
\ No newline at end of file